@@ -0,0 +1,31 @@
+package frc.robot.benchmarks;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import frc.robot.FlipUtil;
+
+/** Shared setup for benchmarks that touch WPILib classes. */
+final class BenchmarkSupport {
+  private static boolean initialized = false;
+
+  private BenchmarkSupport() {}
+
+  /** Initializes the simulated HAL once per fork. */
+  static synchronized void initHal() {
+    if (initialized) return;
+    if (!HAL.initialize(500, 0)) {
+      throw new IllegalStateException("Failed to initialize the HAL");
+    }
+    initialized = true;
+  }
+
+  /** Sets the simulated alliance so FlipUtil takes the requested branch. */
+  static void setRedAlliance(boolean red) {
+    DriverStationSim.setAllianceStationId(red ? AllianceStationID.Red1 : AllianceStationID.Blue1);
+    DriverStationSim.notifyNewData();
+    DriverStation.refreshData();
+    FlipUtil.update();
+  }
+}
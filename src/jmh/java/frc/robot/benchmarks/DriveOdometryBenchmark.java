@@ -0,0 +1,95 @@
+package frc.robot.benchmarks;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.subsystems.drive.Drive;
+import frc.robot.subsystems.drive.GyroIO;
+import frc.robot.subsystems.drive.ModuleIO;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Drive.periodic() integrating a loop's worth of high-frequency odometry samples (5 samples is one
+ * 20 ms loop at 250 Hz). The fake IOs write into preallocated arrays so only the integration path
+ * is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DriveOdometryBenchmark {
+  private static final double SAMPLE_PERIOD = 0.004;
+  private static final double SPEED_RAD_PER_SEC = 30.0;
+
+  @Param({"1", "5"})
+  public int samplesPerLoop;
+
+  private Drive drive;
+  private double time = 0.0;
+
+  private final class FakeGyro implements GyroIO {
+    private double[] timestamps;
+    private Rotation2d[] yaws;
+
+    @Override
+    public void updateInputs(GyroIOInputs inputs) {
+      if (timestamps == null) {
+        timestamps = new double[samplesPerLoop];
+        yaws = new Rotation2d[samplesPerLoop];
+      }
+      for (int i = 0; i < samplesPerLoop; i++) {
+        timestamps[i] = time + i * SAMPLE_PERIOD;
+        yaws[i] = Rotation2d.kZero;
+      }
+      inputs.connected = true;
+      inputs.odometryYawTimestamps = timestamps;
+      inputs.odometryYawPositions = yaws;
+    }
+  }
+
+  private final class FakeModule implements ModuleIO {
+    private double[] timestamps;
+    private double[] drivePositions;
+    private Rotation2d[] turnPositions;
+
+    @Override
+    public void updateInputs(ModuleIOInputs inputs) {
+      if (timestamps == null) {
+        timestamps = new double[samplesPerLoop];
+        drivePositions = new double[samplesPerLoop];
+        turnPositions = new Rotation2d[samplesPerLoop];
+      }
+      for (int i = 0; i < samplesPerLoop; i++) {
+        timestamps[i] = time + i * SAMPLE_PERIOD;
+        drivePositions[i] = timestamps[i] * SPEED_RAD_PER_SEC;
+        turnPositions[i] = Rotation2d.kZero;
+      }
+      inputs.driveConnected = true;
+      inputs.turnConnected = true;
+      inputs.odometryTimestamps = timestamps;
+      inputs.odometryDrivePositionsRad = drivePositions;
+      inputs.odometryTurnPositions = turnPositions;
+    }
+  }
+
+  @Setup
+  public void setup() {
+    BenchmarkSupport.initHal();
+    drive =
+        new Drive(
+            new FakeGyro(), new FakeModule(), new FakeModule(), new FakeModule(), new FakeModule());
+  }
+
+  @Benchmark
+  public Pose2d periodic() {
+    drive.periodic();
+    time += samplesPerLoop * SAMPLE_PERIOD;
+    return drive.getPose();
+  }
+}
@@ -0,0 +1,48 @@
+package frc.robot.benchmarks;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import frc.robot.FlipUtil;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** FlipUtil conversions, called from several subsystems every loop. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FlipUtilBenchmark {
+  @Param({"false", "true"})
+  public boolean redAlliance;
+
+  private final Translation2d translation = new Translation2d(4.6, 4.0);
+  private final Pose2d pose = new Pose2d(2.5, 3.0, Rotation2d.fromDegrees(30.0));
+
+  @Setup
+  public void setup() {
+    BenchmarkSupport.initHal();
+    BenchmarkSupport.setRedAlliance(redAlliance);
+  }
+
+  @Benchmark
+  public double applyX() {
+    return FlipUtil.applyX(translation.getX());
+  }
+
+  @Benchmark
+  public Translation2d applyTranslation() {
+    return FlipUtil.apply(translation);
+  }
+
+  @Benchmark
+  public Pose2d applyPose() {
+    return FlipUtil.apply(pose);
+  }
+}
@@ -0,0 +1,52 @@
+package frc.robot.benchmarks;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.subsystems.RobotHealth;
+import frc.robot.subsystems.drive.Drive;
+import frc.robot.subsystems.drive.GyroIO;
+import frc.robot.subsystems.drive.ModuleIO;
+import frc.robot.subsystems.vision.Vision;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** RobotHealth.updateZones(), which flips the trench openings every loop. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RobotHealthBenchmark {
+  @Param({"false", "true"})
+  public boolean redAlliance;
+
+  private RobotHealth robotHealth;
+
+  @Setup
+  public void setup() {
+    BenchmarkSupport.initHal();
+    BenchmarkSupport.setRedAlliance(redAlliance);
+
+    Drive drive =
+        new Drive(
+            new GyroIO() {},
+            new ModuleIO() {},
+            new ModuleIO() {},
+            new ModuleIO() {},
+            new ModuleIO() {});
+    drive.setPose(new Pose2d(5.0, 1.0, Rotation2d.kZero));
+    Vision vision = new Vision((pose, timestamp, stdDevs) -> {}, null);
+    robotHealth = new RobotHealth(drive, vision);
+  }
+
+  @Benchmark
+  public boolean updateZones() {
+    robotHealth.updateZones();
+    return robotHealth.hoodDangerNearTrench;
+  }
+}
@@ -0,0 +1,41 @@
+package frc.robot.benchmarks;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import frc.robot.shot.ShotController;
+import frc.robot.shot.ShotController.ShotMode;
+import frc.robot.shot.ShotSolution;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** ShotController.calculate(), called up to twice per loop by ShootingCoordinator. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ShotControllerBenchmark {
+  @Param({"STATIONARY", "LEAD"})
+  public ShotMode mode;
+
+  private ShotController shotController;
+  private final Translation2d robotPosition = new Translation2d(2.5, 3.0);
+  private final Translation2d robotVelocity = new Translation2d(3.5, -1.2);
+  private final Translation2d goalPosition = new Translation2d(4.6, 4.0);
+
+  @Setup
+  public void setup() {
+    BenchmarkSupport.initHal();
+    shotController = new ShotController();
+    shotController.setShotMode(mode);
+  }
+
+  @Benchmark
+  public ShotSolution calculate() {
+    return shotController.calculate(robotPosition, robotVelocity, goalPosition);
+  }
+}
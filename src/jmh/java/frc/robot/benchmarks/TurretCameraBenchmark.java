@@ -0,0 +1,52 @@
+package frc.robot.benchmarks;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.geometry.Translation3d;
+import frc.robot.subsystems.vision.TurretCamera;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** TurretCamera.periodic() with a fixed set of visible tags. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TurretCameraBenchmark {
+  @Param({"1", "4"})
+  public int targetCount;
+
+  private TurretCamera turretCamera;
+
+  @Setup
+  public void setup() {
+    BenchmarkSupport.initHal();
+
+    List<TurretCamera.VisionTarget> targets = new ArrayList<>();
+    for (int i = 0; i < targetCount; i++) {
+      targets.add(
+          new TurretCamera.SimpleVisionTarget(
+              18 + i,
+              new Transform3d(new Translation3d(2.0 + 0.1 * i, 0.3, 0.5), new Rotation3d()),
+              2.0 * i));
+    }
+
+    turretCamera =
+        new TurretCamera(() -> Math.toRadians(20.0), () -> targets, () -> Rotation2d.kZero);
+  }
+
+  @Benchmark
+  public double periodic() {
+    turretCamera.periodic();
+    return turretCamera.getDistanceMeters();
+  }
+}
@@ -0,0 +1,79 @@
+package frc.robot.benchmarks;
+
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import frc.robot.subsystems.vision.Vision;
+import frc.robot.subsystems.vision.VisionIO;
+import frc.robot.subsystems.vision.VisionIO.PoseObservation;
+import frc.robot.subsystems.vision.VisionIO.PoseObservationType;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Vision.periodic() observation filtering for three cameras. The fake cameras hand over the same
+ * preallocated observations every loop, so only garbage from the filter itself is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VisionBenchmark {
+  @Param({"1", "4"})
+  public int observationsPerCamera;
+
+  private Vision vision;
+  private int accepted = 0;
+
+  /** Camera that reports the same frames every loop. */
+  private static class FakeCamera implements VisionIO {
+    private final PoseObservation[] observations;
+    private final int[] tagIds = new int[] {18, 19, 20, 21};
+
+    FakeCamera(int observationCount, double offset) {
+      observations = new PoseObservation[observationCount];
+      for (int i = 0; i < observationCount; i++) {
+        // Alternate between poses that pass and fail the filter
+        double x = i % 2 == 0 ? 3.0 + offset : -1.0;
+        observations[i] =
+            new PoseObservation(
+                1.0 + i * 0.01,
+                new Pose3d(x, 4.0, 0.05, new Rotation3d()),
+                0.1,
+                2,
+                2.5,
+                PoseObservationType.MEGATAG_1);
+      }
+    }
+
+    @Override
+    public void updateInputs(VisionIOInputs inputs) {
+      inputs.connected = true;
+      inputs.poseObservations = observations;
+      inputs.tagIds = tagIds;
+    }
+  }
+
+  @Setup
+  public void setup() {
+    BenchmarkSupport.initHal();
+    vision =
+        new Vision(
+            (pose, timestamp, stdDevs) -> accepted++,
+            null,
+            new FakeCamera(observationsPerCamera, 0.0),
+            new FakeCamera(observationsPerCamera, 0.1),
+            new FakeCamera(observationsPerCamera, 0.2));
+  }
+
+  @Benchmark
+  public int periodic() {
+    vision.periodic();
+    return accepted;
+  }
+}
@@ -0,0 +1,264 @@
+package frc.robot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pathplanner.lib.auto.AutoBuilder;
+import com.pathplanner.lib.commands.PathPlannerAuto;
+import com.pathplanner.lib.path.PathPlannerPath;
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.subsystems.drive.Drive;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs every PathPlanner auto back to back in simulation on a virtual clock, as fast as the CPU
+ * allows, then writes a JSON summary and exits.
+ *
+ * <p>Enabled by setting the AUTO_SIM environment variable (see the autoSim Gradle task). The robot
+ * loop runs without timing and the sim clock is paused, so each loop advances the clock by exactly
+ * one period no matter how long the loop took. The summary reports, per auto, whether it finished
+ * within the timeout, how long it took in match time, how far the final pose ended from the end of
+ * the last path, and the wall-clock compute time of each loop. AUTO_SIM_OUTPUT overrides the
+ * summary path.
+ */
+public class AutoSimHarness {
+  private static final String ENABLE_ENV = "AUTO_SIM";
+  private static final String OUTPUT_ENV = "AUTO_SIM_OUTPUT";
+  private static final String DEFAULT_OUTPUT = "build/autosim/summary.json";
+
+  private static final double LOOP_PERIOD_SECONDS = 0.02;
+  private static final double AUTO_TIMEOUT_SECONDS = 20.0;
+  private static final int DISABLED_LOOPS = 10;
+  private static final int MAX_LOOPS_PER_AUTO =
+      (int) Math.ceil(AUTO_TIMEOUT_SECONDS / LOOP_PERIOD_SECONDS) + DISABLED_LOOPS + 10;
+
+  private record AutoResult(
+      String name,
+      boolean completed,
+      double durationSeconds,
+      Pose2d finalPose,
+      Pose2d expectedPose,
+      double translationErrorMeters,
+      double rotationErrorDegrees,
+      int loops,
+      double meanLoopMs,
+      double p50LoopMs,
+      double p99LoopMs,
+      double maxLoopMs) {}
+
+  private enum Phase {
+    DISABLED,
+    RUNNING
+  }
+
+  private final Drive drive;
+  private final List<String> autoNames;
+  private final List<AutoResult> results = new ArrayList<>();
+  private final long[] loopNanos = new long[MAX_LOOPS_PER_AUTO];
+
+  private int autoIndex = 0;
+  private Phase phase = Phase.DISABLED;
+  private int phaseLoops = 0;
+  private int loopCount = 0;
+  private long lastLoopNanos = 0;
+  private Command command = null;
+  private double startTime = 0.0;
+
+  /** Returns whether the harness was requested and the robot is running the physics sim. */
+  public static boolean isEnabled() {
+    return System.getenv(ENABLE_ENV) != null && Constants.currentMode == Constants.Mode.SIM;
+  }
+
+  public AutoSimHarness(Drive drive) {
+    this.drive = drive;
+    autoNames = AutoBuilder.getAllAutoNames();
+
+    SimHooks.pauseTiming();
+    DriverStationSim.setDsAttached(true);
+    DriverStationSim.setAllianceStationId(AllianceStationID.Blue1);
+    setEnabled(false);
+    System.out.println("[AutoSim] Running " + autoNames.size() + " autos");
+  }
+
+  /** Returns the auto being run. autonomousInit() uses this instead of the chooser. */
+  public Command getAutonomousCommand() {
+    return command;
+  }
+
+  /** Advances the harness and the sim clock. Call from simulationPeriodic(). */
+  public void periodic() {
+    long now = System.nanoTime();
+    if (lastLoopNanos != 0 && loopCount < loopNanos.length) {
+      loopNanos[loopCount++] = now - lastLoopNanos;
+    }
+    lastLoopNanos = now;
+
+    if (autoIndex >= autoNames.size()) {
+      finish();
+      return;
+    }
+
+    String name = autoNames.get(autoIndex);
+    phaseLoops++;
+    switch (phase) {
+      case DISABLED:
+        if (phaseLoops == 1) {
+          command = new PathPlannerAuto(name);
+          drive.setPose(((PathPlannerAuto) command).getStartingPose());
+        }
+        if (phaseLoops >= DISABLED_LOOPS) {
+          // autonomousInit() schedules the command on the next loop
+          setEnabled(true);
+          phase = Phase.RUNNING;
+          phaseLoops = 0;
+          loopCount = 0;
+        }
+        break;
+
+      case RUNNING:
+        // autonomousInit() ran at the start of the first loop of this phase
+        if (phaseLoops == 1) {
+          startTime = Timer.getFPGATimestamp();
+        }
+        double elapsed = Timer.getFPGATimestamp() + LOOP_PERIOD_SECONDS - startTime;
+        boolean completed = !command.isScheduled();
+        boolean timedOut = phaseLoops * LOOP_PERIOD_SECONDS > AUTO_TIMEOUT_SECONDS;
+        if (completed || timedOut) {
+          results.add(makeResult(name, completed, elapsed));
+          System.out.println(
+              "[AutoSim] "
+                  + name
+                  + (completed ? " completed in " + elapsed + " s" : " timed out"));
+          setEnabled(false);
+          phase = Phase.DISABLED;
+          phaseLoops = 0;
+          autoIndex++;
+        }
+        break;
+    }
+
+    SimHooks.stepTiming(LOOP_PERIOD_SECONDS);
+  }
+
+  private AutoResult makeResult(String name, boolean completed, double elapsed) {
+    Pose2d finalPose = drive.getPose();
+    Pose2d expectedPose = getExpectedEndPose(name);
+    double translationError =
+        expectedPose == null
+            ? Double.NaN
+            : finalPose.getTranslation().getDistance(expectedPose.getTranslation());
+    double rotationError =
+        expectedPose == null
+            ? Double.NaN
+            : Math.abs(finalPose.getRotation().minus(expectedPose.getRotation()).getDegrees());
+
+    long[] sorted = Arrays.copyOf(loopNanos, loopCount);
+    Arrays.sort(sorted);
+    double total = 0.0;
+    for (long nanos : sorted) {
+      total += nanos;
+    }
+    int n = sorted.length;
+    return new AutoResult(
+        name,
+        completed,
+        elapsed,
+        finalPose,
+        expectedPose,
+        translationError,
+        rotationError,
+        n,
+        n == 0 ? 0.0 : total / n / 1e6,
+        n == 0 ? 0.0 : sorted[(n - 1) / 2] / 1e6,
+        n == 0 ? 0.0 : sorted[(n - 1) * 99 / 100] / 1e6,
+        n == 0 ? 0.0 : sorted[n - 1] / 1e6);
+  }
+
+  /** Returns the end of the last path in the auto, or null if it has no paths. */
+  private static Pose2d getExpectedEndPose(String name) {
+    try {
+      List<PathPlannerPath> paths = PathPlannerAuto.getPathGroupFromAutoFile(name);
+      if (paths.isEmpty()) return null;
+      PathPlannerPath lastPath = paths.get(paths.size() - 1);
+      List<Pose2d> poses = lastPath.getPathPoses();
+      return new Pose2d(
+          poses.get(poses.size() - 1).getTranslation(), lastPath.getGoalEndState().rotation());
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  private static void setEnabled(boolean enabled) {
+    DriverStationSim.setAutonomous(enabled);
+    DriverStationSim.setEnabled(enabled);
+    DriverStationSim.notifyNewData();
+  }
+
+  /* ===================== Summary ===================== */
+
+  private void finish() {
+    String output = System.getenv(OUTPUT_ENV);
+    Path path = Path.of(output != null && !output.isEmpty() ? output : DEFAULT_OUTPUT);
+    boolean allCompleted = true;
+    ObjectMapper mapper = new ObjectMapper();
+    ObjectNode summary = mapper.createObjectNode();
+    ArrayNode autos = summary.putArray("autos");
+    for (AutoResult result : results) {
+      allCompleted &= result.completed();
+      ObjectNode auto = autos.addObject();
+      auto.put("name", result.name());
+      auto.put("completed", result.completed());
+      putNumber(auto, "durationSeconds", result.durationSeconds());
+      putPose(auto, "finalPose", result.finalPose());
+      putPose(auto, "expectedPose", result.expectedPose());
+      putNumber(auto, "translationErrorMeters", result.translationErrorMeters());
+      putNumber(auto, "rotationErrorDegrees", result.rotationErrorDegrees());
+      auto.put("loops", result.loops());
+      putNumber(auto, "meanLoopMs", result.meanLoopMs());
+      putNumber(auto, "p50LoopMs", result.p50LoopMs());
+      putNumber(auto, "p99LoopMs", result.p99LoopMs());
+      putNumber(auto, "maxLoopMs", result.maxLoopMs());
+    }
+    summary.put("allCompleted", allCompleted);
+
+    try {
+      if (path.getParent() != null) Files.createDirectories(path.getParent());
+      mapper.writerWithDefaultPrettyPrinter().writeValue(path.toFile(), summary);
+      System.out.println("[AutoSim] Wrote summary to " + path.toAbsolutePath());
+    } catch (IOException e) {
+      e.printStackTrace();
+      System.exit(2);
+    }
+    System.exit(allCompleted ? 0 : 1);
+  }
+
+  /** Writes a number, or null if it isn't finite (JSON has no NaN). */
+  private static void putNumber(ObjectNode node, String key, double value) {
+    if (Double.isFinite(value)) {
+      node.put(key, value);
+    } else {
+      node.putNull(key);
+    }
+  }
+
+  private static void putPose(ObjectNode node, String key, Pose2d pose) {
+    if (pose == null) {
+      node.putNull(key);
+      return;
+    }
+    ObjectNode poseNode = node.putObject(key);
+    putNumber(poseNode, "x", pose.getX());
+    putNumber(poseNode, "y", pose.getY());
+    putNumber(poseNode, "degrees", pose.getRotation().getDegrees());
+  }
+}
@@ -7,6 +7,7 @@
 
 package frc.robot;
 
+import com.ctre.phoenix6.signals.FeedbackSensorSourceValue;
 import edu.wpi.first.math.geometry.Translation3d;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.RobotBase;
@@ -14,10 +15,11 @@ import edu.wpi.first.wpilibj.RobotBase;
 /**
  * This class defines the runtime mode used by AdvantageKit. The mode is always "real" when running
  * on a roboRIO. Change the value of "simMode" to switch between "sim" (physics sim) and "replay"
- * (log replay from a file).
+ * (log replay from a file). Worker JVMs started by {@link ReplayBatch} always run in replay.
  */
 public final class Constants {
-  public static final Mode simMode = Mode.SIM;
+  public static final Mode simMode =
+      System.getenv(ReplayBatch.WORKER_ENV) != null ? Mode.REPLAY : Mode.SIM;
   public static final Mode currentMode = RobotBase.isReal() ? Mode.REAL : simMode;
 
   public static final boolean disableHAL = false;
@@ -97,6 +99,39 @@ public final class Constants {
     public static final double toleranceDeg = .1;
     public static final double OMEGA_LOOKAHEAD = .2;
 
+    // How fast the RIO P loop above actually moves the turret, for the planner's time-to-aim model.
+    // Estimates: measure by logging Turret/CurrentDeg through a 90 degree step and reading the peak
+    // rate and the time to settle inside toleranceDeg.
+    public static final double RIO_MAX_VELOCITY_DEG_PER_SEC = 180.0;
+    public static final double RIO_MAX_ACCELERATION_DEG_PER_SEC2 = 360.0;
+
+    // On-device control: MotionMagic on the TalonFX with the CANcoder fused, plus the robot's yaw
+    // rate as feedforward. Uses the RIO P loop above while false, and nothing else reads the MM_
+    // constants. A wrong ratio or sign drives the turret into its hard stops, so measure these on
+    // the robot before enabling it:
+    //  1. GEAR_RATIO, CANcoder rotations per turret rotation (10.0 is an example value). Turn the
+    //     turret a known angle and compare the change in CANcoder position.
+    //  2. ROTOR_TO_SENSOR_RATIO, motor rotations per CANcoder rotation (1.0 is a placeholder). Log
+    //     the rotor position through the same move.
+    //  3. Inversion. A small positive VoltageOut must raise the CANcoder angle, which the
+    //     Clockwise_Positive setting in Turret.configureMotor() assumes.
+    //  4. MM_kS and MM_kV, from the voltage that just starts the turret moving and the steady speed
+    //     at a few fixed voltages.
+    //  5. MM_CRUISE_VELOCITY and MM_ACCELERATION, below what those runs reach, then MM_kP and MM_kD
+    //     with small steps.
+    //  6. The soft limits, TURRET_MIN_DEG and TURRET_MAX_DEG, must sit inside the hard stops.
+    //  7. FeedbackSource, FusedCANcoder needs a Phoenix Pro license.
+    public static final boolean UseMotionMagic = false;
+    public static final FeedbackSensorSourceValue FeedbackSource =
+        FeedbackSensorSourceValue.FusedCANcoder; // RemoteCANcoder without Phoenix Pro
+    public static final double ROTOR_TO_SENSOR_RATIO = 1.0; // Motor rotations per CANcoder rotation
+    public static final double MM_kP = 60.0; // Volts per turret rotation of error
+    public static final double MM_kD = 0.5;
+    public static final double MM_kS = kS; // Volts
+    public static final double MM_kV = 1.2; // Volts per turret rotation per second
+    public static final double MM_CRUISE_VELOCITY = 2.0; // Turret rotations per second
+    public static final double MM_ACCELERATION = 8.0; // Turret rotations per second^2
+
     public static final Translation3d turretOffset =
         new Translation3d(Units.inchesToMeters(9), Units.inchesToMeters(5), 0);
   }
@@ -143,5 +178,16 @@ public final class Constants {
     public static final double AutoRPM = 1000.0;
     public static final double RPSTolerance = 5.0;
     public static final boolean HardwareEnabled = true;
+
+    // Feed gate timing, see ShotReadiness
+    public static final double FeedTransitSeconds = 0.12; // Feed start to first ball at flywheel
+    public static final double MaxReadyWaitSeconds = 1.0; // Feed anyway after this long
+    public static final double ReadyDropoutSeconds = 0.3; // Close the gate again past this
+
+    // Default for the Shooter/BallCompensation dashboard switch, which times a feedforward boost
+    // to each ball while feeding. Off until the boost is tuned on the robot (see Shooter); shot
+    // detection runs either way.
+    public static final boolean BallCompensation = false;
+
   }
 }
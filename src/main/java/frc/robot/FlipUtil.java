@@ -9,53 +9,113 @@ package frc.robot;
 
 import edu.wpi.first.math.geometry.*;
 import edu.wpi.first.wpilibj.DriverStation;
-import org.littletonrobotics.junction.AutoLogOutput;
 import org.littletonrobotics.junction.Logger;
 
+/**
+ * Converts blue-origin field coordinates to the current alliance.
+ *
+ * <p>The alliance is read once per loop in {@link #update()}, so every flip during the loop is a
+ * cached boolean check. Field geometry used every loop is flipped once up front and returned by
+ * lookup.
+ */
 public class FlipUtil {
+  private static boolean shouldFlip = false;
+
+  // Precomputed field geometry, indexed [blue, red]
+  private static final Translation2d[] hubCenter = {
+    FieldConstants.Hub.innerCenterPoint.toTranslation2d(),
+    flip(FieldConstants.Hub.innerCenterPoint.toTranslation2d())
+  };
+  private static final Translation2d[][] trenchOpenings = {
+    trenchOpenings(false), trenchOpenings(true)
+  };
+
+  /** Reads the alliance from the driver station. Call once per loop, before the scheduler runs. */
+  public static void update() {
+    shouldFlip =
+        !Constants.disableHAL
+            && DriverStation.getAlliance().isPresent()
+            && DriverStation.getAlliance().get() == DriverStation.Alliance.Red;
+    Logger.recordOutput("ShouldFlip/Should", shouldFlip);
+  }
+
+  public static boolean shouldFlip() {
+    return shouldFlip;
+  }
+
+  /* ===================== Field Geometry ===================== */
+
+  /** Returns the hub inner center for the current alliance. */
+  public static Translation2d getHubCenter() {
+    return hubCenter[shouldFlip ? 1 : 0];
+  }
+
+  /**
+   * Returns the trench opening top corners for the current alliance, ordered left trench top left,
+   * left trench top right, right trench top left, right trench top right. The array is shared, do
+   * not modify it.
+   */
+  public static Translation2d[] getTrenchOpenings() {
+    return trenchOpenings[shouldFlip ? 1 : 0];
+  }
+
+  private static Translation2d flip(Translation2d translation) {
+    return new Translation2d(
+        FieldConstants.fieldLength - translation.getX(),
+        FieldConstants.fieldWidth - translation.getY());
+  }
+
+  private static Translation2d[] trenchOpenings(boolean flipped) {
+    Translation2d[] openings = {
+      FieldConstants.LeftTrench.openingTopLeft.toTranslation2d(),
+      FieldConstants.LeftTrench.openingTopRight.toTranslation2d(),
+      FieldConstants.RightTrench.openingTopLeft.toTranslation2d(),
+      FieldConstants.RightTrench.openingTopRight.toTranslation2d()
+    };
+    if (flipped) {
+      for (int i = 0; i < openings.length; i++) {
+        openings[i] = flip(openings[i]);
+      }
+    }
+    return openings;
+  }
+
+  /* ===================== Conversions ===================== */
+
   public static double applyX(double x) {
-    return shouldFlip() ? FieldConstants.fieldLength - x : x;
+    return shouldFlip ? FieldConstants.fieldLength - x : x;
   }
 
   public static double applyY(double y) {
-    return shouldFlip() ? FieldConstants.fieldWidth - y : y;
+    return shouldFlip ? FieldConstants.fieldWidth - y : y;
   }
 
   public static Translation2d apply(Translation2d translation) {
-    return new Translation2d(applyX(translation.getX()), applyY(translation.getY()));
+    return shouldFlip ? flip(translation) : translation;
   }
 
   public static Rotation2d apply(Rotation2d rotation) {
-    return shouldFlip() ? rotation.rotateBy(Rotation2d.kPi) : rotation;
+    return shouldFlip ? rotation.rotateBy(Rotation2d.kPi) : rotation;
   }
 
   public static Pose2d apply(Pose2d pose) {
-    return shouldFlip()
-        ? new Pose2d(apply(pose.getTranslation()), apply(pose.getRotation()))
-        : pose;
+    return shouldFlip ? new Pose2d(flip(pose.getTranslation()), apply(pose.getRotation())) : pose;
   }
 
   public static Translation3d apply(Translation3d translation) {
-    return new Translation3d(
-        applyX(translation.getX()), applyY(translation.getY()), translation.getZ());
+    return shouldFlip
+        ? new Translation3d(
+            FieldConstants.fieldLength - translation.getX(),
+            FieldConstants.fieldWidth - translation.getY(),
+            translation.getZ())
+        : translation;
   }
 
   public static Rotation3d apply(Rotation3d rotation) {
-    return shouldFlip() ? rotation.rotateBy(new Rotation3d(0.0, 0.0, Math.PI)) : rotation;
+    return shouldFlip ? rotation.rotateBy(new Rotation3d(0.0, 0.0, Math.PI)) : rotation;
   }
 
   public static Pose3d apply(Pose3d pose) {
-    return new Pose3d(apply(pose.getTranslation()), apply(pose.getRotation()));
-  }
-
-  @AutoLogOutput
-  public static boolean shouldFlip() {
-    boolean ShouldFlip =
-        !Constants.disableHAL
-            && DriverStation.getAlliance().isPresent()
-            && DriverStation.getAlliance().get() == DriverStation.Alliance.Red;
-    Logger.recordOutput("ShouldFlip/Should", ShouldFlip);
-
-    return ShouldFlip;
+    return shouldFlip ? new Pose3d(apply(pose.getTranslation()), apply(pose.getRotation())) : pose;
   }
 }
@@ -0,0 +1,161 @@
+package frc.robot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import frc.robot.util.ReplayStats;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Replays every log in a directory, several at a time, then writes a combined summary.
+ *
+ * <p>Each log is replayed by a separate JVM running the normal robot code in REPLAY mode, so the
+ * static state in subsystems and AdvantageKit never crosses between matches. Workers write the
+ * usual _sim log plus a {@link ReplayStats} JSON file next to each input log, and their console
+ * output to a _replay.txt file. The summary (replay_summary.json in the log directory) lists each
+ * match's stats and exit code along with totals across the event. Run with "./gradlew replayBatch
+ * -PreplayDir=<dir> [-PreplayWorkers=<n>]".
+ */
+public final class ReplayBatch {
+  /** Set on worker JVMs to force REPLAY mode, see {@link Constants#simMode}. */
+  public static final String WORKER_ENV = "REPLAY_WORKER";
+
+  /** Passed to workers with the path for their stats file. */
+  public static final String STATS_PATH_ENV = "REPLAY_STATS_PATH";
+
+  private static final long WORKER_TIMEOUT_MINUTES = 30;
+
+  private ReplayBatch() {}
+
+  public static void main(String... args) throws Exception {
+    if (args.length < 1) {
+      System.err.println("Usage: ReplayBatch <log directory> [workers]");
+      System.exit(2);
+    }
+    Path directory = Path.of(args[0]).toAbsolutePath();
+    int workers = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+    if (workers <= 0) {
+      workers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    }
+
+    List<Path> logs;
+    try (Stream<Path> files = Files.list(directory)) {
+      logs =
+          files
+              .filter(path -> path.toString().endsWith(".wpilog"))
+              .filter(path -> !path.toString().endsWith("_sim.wpilog"))
+              .sorted()
+              .toList();
+    }
+    System.out.println(
+        "[ReplayBatch] Replaying " + logs.size() + " logs with " + workers + " workers");
+
+    ExecutorService pool = Executors.newFixedThreadPool(workers);
+    List<Future<Integer>> exitCodes = new ArrayList<>();
+    for (Path log : logs) {
+      exitCodes.add(pool.submit(() -> runWorker(log)));
+    }
+    pool.shutdown();
+
+    // Collect results in log order
+    ObjectMapper mapper = new ObjectMapper();
+    ObjectNode summary = mapper.createObjectNode();
+    ArrayNode matches = summary.putArray("matches");
+    int failed = 0;
+    long totalLoops = 0;
+    double totalLoopMs = 0.0;
+    double maxLoopMs = 0.0;
+    long visionAccepted = 0;
+    long visionRejected = 0;
+    long shots = 0;
+    for (int i = 0; i < logs.size(); i++) {
+      int exitCode = exitCodes.get(i).get();
+      Path statsPath = Path.of(ReplayStats.getDefaultStatsPath(logs.get(i).toString()));
+      ObjectNode match;
+      if (Files.exists(statsPath)) {
+        match = (ObjectNode) mapper.readTree(statsPath.toFile());
+        // path() reads missing fields as zero instead of throwing
+        long loops = match.path("loops").asLong();
+        totalLoops += loops;
+        totalLoopMs += match.path("meanLoopMs").asDouble() * loops;
+        maxLoopMs = Math.max(maxLoopMs, match.path("maxLoopMs").asDouble());
+        visionAccepted += match.path("visionAccepted").asLong();
+        visionRejected += match.path("visionRejected").asLong();
+        shots += match.path("shots").asLong();
+      } else {
+        match = mapper.createObjectNode();
+        match.put("log", logs.get(i).toString());
+      }
+      match.put("exitCode", exitCode);
+      if (exitCode != 0) failed++;
+      matches.add(match);
+    }
+
+    ObjectNode totals = summary.putObject("totals");
+    totals.put("matches", logs.size());
+    totals.put("failed", failed);
+    totals.put("loops", totalLoops);
+    totals.put("meanLoopMs", totalLoops == 0 ? 0.0 : totalLoopMs / totalLoops);
+    totals.put("maxLoopMs", maxLoopMs);
+    long observations = visionAccepted + visionRejected;
+    totals.put(
+        "visionAcceptanceRate", observations == 0 ? 0.0 : (double) visionAccepted / observations);
+    totals.put("shots", shots);
+
+    File output = directory.resolve("replay_summary.json").toFile();
+    mapper.writerWithDefaultPrettyPrinter().writeValue(output, summary);
+    System.out.println("[ReplayBatch] Wrote summary to " + output);
+    System.exit(failed == 0 ? 0 : 1);
+  }
+
+  /** Replays one log in a child JVM with the same classpath and native libraries. */
+  private static int runWorker(Path log) throws IOException, InterruptedException {
+    String logPath = log.toString();
+    String stem = logPath.substring(0, logPath.length() - ".wpilog".length());
+    String javaBinary = ProcessHandle.current().info().command().orElse("java");
+    String statsPath = ReplayStats.getDefaultStatsPath(logPath);
+
+    // A stats file left by an earlier run would be read as this run's if the worker fails
+    Files.deleteIfExists(Path.of(statsPath));
+
+    ProcessBuilder builder =
+        new ProcessBuilder(
+            javaBinary,
+            "-cp",
+            System.getProperty("java.class.path"),
+            "-Djava.library.path=" + System.getProperty("java.library.path"),
+            Main.class.getName());
+    builder.environment().put("AKIT_LOG_PATH", logPath);
+    builder.environment().put(WORKER_ENV, "1");
+    builder.environment().put(STATS_PATH_ENV, statsPath);
+    builder.redirectErrorStream(true);
+    builder.redirectOutput(new File(stem + "_replay.txt"));
+
+    long start = System.nanoTime();
+    Process process = builder.start();
+    if (!process.waitFor(WORKER_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+      process.destroyForcibly();
+      System.out.println("[ReplayBatch] Timed out: " + log.getFileName());
+      return -1;
+    }
+    System.out.println(
+        "[ReplayBatch] Finished "
+            + log.getFileName()
+            + " in "
+            + String.format("%.1f", (System.nanoTime() - start) / 1e9)
+            + " s (exit "
+            + process.exitValue()
+            + ")");
+    return process.exitValue();
+  }
+}
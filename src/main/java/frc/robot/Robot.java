@@ -10,11 +10,16 @@ package frc.robot;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.util.ConfigApplier;
+import frc.robot.util.FlightRecorder;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.ReplayStats;
+import frc.robot.util.SignalRegistry;
+import frc.robot.util.TieredNT4Publisher;
 // import frc.robot.subsystems.QuestNavSub.PositionStatus;
 import org.littletonrobotics.junction.LogFileUtil;
 import org.littletonrobotics.junction.LoggedRobot;
 import org.littletonrobotics.junction.Logger;
-import org.littletonrobotics.junction.networktables.NT4Publisher;
 import org.littletonrobotics.junction.wpilog.WPILOGReader;
 import org.littletonrobotics.junction.wpilog.WPILOGWriter;
 
@@ -27,6 +32,7 @@ import org.littletonrobotics.junction.wpilog.WPILOGWriter;
 public class Robot extends LoggedRobot {
   private Command autonomousCommand;
   private RobotContainer robotContainer;
+  private AutoSimHarness autoSim = null;
 
   public Robot() {
 
@@ -50,12 +56,12 @@ public class Robot extends LoggedRobot {
       case REAL:
         // Running on a real robot, log to a USB stick ("/U/logs")
         Logger.addDataReceiver(new WPILOGWriter());
-        Logger.addDataReceiver(new NT4Publisher());
+        Logger.addDataReceiver(new TieredNT4Publisher());
         break;
 
       case SIM:
         // Running a physics simulator, log to NT
-        Logger.addDataReceiver(new NT4Publisher());
+        Logger.addDataReceiver(new TieredNT4Publisher());
         break;
 
       case REPLAY:
@@ -64,14 +70,21 @@ public class Robot extends LoggedRobot {
         String logPath = LogFileUtil.findReplayLog();
         Logger.setReplaySource(new WPILOGReader(logPath));
         Logger.addDataReceiver(new WPILOGWriter(LogFileUtil.addPathSuffix(logPath, "_sim")));
+        String statsPath = System.getenv(ReplayBatch.STATS_PATH_ENV);
+        ReplayStats.start(
+            logPath, statsPath != null ? statsPath : ReplayStats.getDefaultStatsPath(logPath));
         break;
     }
 
     // Start AdvantageKit logger
     Logger.start();
+    LoopProfiler.bindBeforeButtons();
     // Instantiate our RobotContainer. This will perform all our button bindings,
     // and put our autonomous chooser on the dashboard.
     robotContainer = new RobotContainer();
+    LoopProfiler.bindAfterButtons();
+    // Every subsystem has registered its channels by now
+    FlightRecorder.start();
     // edu.wpi.first.wpilibj.Watchdog.suppressTimeoutMessage(true);
 
   }
@@ -95,7 +108,19 @@ public class Robot extends LoggedRobot {
     // finished or interrupted commands, and running subsystem periodic() methods.
     // This must be called from the robot's periodic block in order for anything in
     // the Command-based framework to work.
+    long loopStartNanos = System.nanoTime();
+    LoopProfiler.startLoop();
+    // Refresh all mechanism status signals together before subsystems read them
+    SignalRegistry.refreshAll();
+    // Read the alliance once so every flip this loop is a cached lookup
+    FlipUtil.update();
     CommandScheduler.getInstance().run();
+    // Log results of any config applies that finished on the worker
+    ConfigApplier.periodic();
+    // Dump the flight recorder if a fault was flagged
+    FlightRecorder.periodic();
+    LoopProfiler.endLoop();
+    ReplayStats.recordLoop(System.nanoTime() - loopStartNanos);
 
     // Return to non-RT thread priority (do not modify the first argument)
     // Threads.setCurrentThreadPriority(false, 10);
@@ -120,7 +145,8 @@ public class Robot extends LoggedRobot {
   /** This autonomous runs the autonomous command selected by your {@link RobotContainer} class. */
   @Override
   public void autonomousInit() {
-    autonomousCommand = robotContainer.getAutonomousCommand();
+    autonomousCommand =
+        autoSim != null ? autoSim.getAutonomousCommand() : robotContainer.getAutonomousCommand();
 
     Logger.recordOutput(
         "Auto/SelectedCommand", autonomousCommand != null ? autonomousCommand.getName() : "NULL");
@@ -177,9 +203,19 @@ public class Robot extends LoggedRobot {
 
   /** This function is called once when the robot is first started up. */
   @Override
-  public void simulationInit() {}
+  public void simulationInit() {
+    // Headless auto runner, see AutoSimHarness
+    if (AutoSimHarness.isEnabled()) {
+      setUseTiming(false);
+      autoSim = new AutoSimHarness(robotContainer.drive);
+    }
+  }
 
   /** This function is called periodically whilst in simulation. */
   @Override
-  public void simulationPeriodic() {}
+  public void simulationPeriodic() {
+    if (autoSim != null) {
+      autoSim.periodic();
+    }
+  }
 }
@@ -3,7 +3,6 @@ package frc.robot.commands;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Translation2d;
-import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.wpilibj2.command.Command;
 import frc.robot.subsystems.drive.Drive;
 import org.littletonrobotics.junction.Logger;
@@ -93,9 +92,8 @@ public class DriveToPointVector extends Command {
     Logger.recordOutput("DriveToPoint/TargetHeading", target.getRotation().getDegrees());
     Logger.recordOutput("DriveToPoint/DriveCommandSpeed", speed);
 
-    drive.runVelocity(
-        ChassisSpeeds.fromFieldRelativeSpeeds(
-            velocity.getX(), velocity.getY(), omega, pose.getRotation()));
+    drive.runLimitedFieldRelativeVelocity(
+        velocity.getX(), velocity.getY(), omega, pose.getRotation().getRadians());
   }
 
   @Override
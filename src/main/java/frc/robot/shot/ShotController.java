@@ -1,11 +1,8 @@
 package frc.robot.shot;
 
-import edu.wpi.first.math.MathUtil;
-import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
-import edu.wpi.first.math.interpolation.InterpolatingTreeMap;
-import edu.wpi.first.math.interpolation.InverseInterpolator;
 import edu.wpi.first.wpilibj.DriverStation;
+import java.util.TreeMap;
 import org.littletonrobotics.junction.AutoLogOutput;
 import org.littletonrobotics.junction.Logger;
 import org.littletonrobotics.junction.networktables.LoggedNetworkNumber;
@@ -34,13 +31,14 @@ public class ShotController {
   private final LoggedNetworkNumber extraLatencySec =
       new LoggedNetworkNumber("Shot/ExtraLatencySec", 0.0);
 
-  private final InterpolatingTreeMap<Double, ShotParams> shotMap =
-      new InterpolatingTreeMap<>(InverseInterpolator.forDouble(), (a, b, t) -> a.interpolate(b, t));
+  // Calibration points are the source of truth, the table is sampled from them for fast lookups
+  private static final double TABLE_STEP_METERS = 0.01;
+  private static final ShotTable.Interpolation TABLE_INTERPOLATION = ShotTable.Interpolation.LINEAR;
 
-  @AutoLogOutput private double shotDistance = 0.0;
+  private final TreeMap<Double, ShotParams> calibrationPoints = new TreeMap<>();
+  private ShotTable shotTable;
 
-  private double minDistance = Double.POSITIVE_INFINITY;
-  private double maxDistance = Double.NEGATIVE_INFINITY;
+  @AutoLogOutput private double shotDistance = 0.0;
 
   public enum ShotMode {
     STATIONARY,
@@ -90,13 +88,16 @@ public class ShotController {
     addShotPoint(5.463, new ShotParams(60, 4641, 1.4));
     addShotPoint(7, new ShotParams(60, 6500, 1.4));
     addShotPoint(8, new ShotParams(60, 6500, 1.4));
+
+    rebuildTable();
   }
 
   private void addShotPoint(double distance, ShotParams params) {
-    shotMap.put(distance, params);
+    calibrationPoints.put(distance, params);
+  }
 
-    minDistance = Math.min(minDistance, distance);
-    maxDistance = Math.max(maxDistance, distance);
+  private void rebuildTable() {
+    shotTable = new ShotTable(calibrationPoints, TABLE_STEP_METERS, TABLE_INTERPOLATION);
   }
 
   private double getTotalLatency() {
@@ -143,12 +144,13 @@ public class ShotController {
       distance = tuningDistance.get();
     }
 
-    ShotParams baseline = getParams(distance);
+    double baselineHood = shotTable.getHoodDegrees(distance);
+    double baselineRPM = shotTable.getShooterRPM(distance);
 
     double turretDegrees = toGoal.getAngle().getDegrees();
 
-    double hood = baseline.hoodDegrees();
-    double rpm = baseline.shooterRPM();
+    double hood = baselineHood;
+    double rpm = baselineRPM;
 
     // Apply live offsets
     hood += hoodOffsetDeg.get();
@@ -156,8 +158,8 @@ public class ShotController {
 
     // Logging for AdvantageScope
     Logger.recordOutput("Shot/DistanceUsed", distance);
-    Logger.recordOutput("Shot/BaselineHood", baseline.hoodDegrees());
-    Logger.recordOutput("Shot/BaselineRPM", baseline.shooterRPM());
+    Logger.recordOutput("Shot/BaselineHood", baselineHood);
+    Logger.recordOutput("Shot/BaselineRPM", baselineRPM);
     Logger.recordOutput("Shot/FinalHood", hood);
     Logger.recordOutput("Shot/FinalRPM", rpm);
 
@@ -168,46 +170,86 @@ public class ShotController {
   LEADING SHOT
   ============================================================ */
 
+  // Solver limits, the time of flight usually settles in 2-4 iterations
+  private static final int LEAD_MAX_ITERATIONS = 10;
+  private static final double LEAD_TOLERANCE_SEC = 1e-4;
+
+  /**
+   * Aims at a virtual goal shifted against the shooter's velocity, so the ball's inherited velocity
+   * carries it into the real goal.
+   *
+   * <p>The virtual goal depends on the time of flight, which depends on the distance to the virtual
+   * goal, so the time of flight is solved with Newton's method on f(t) = t - tof(d(t)), falling
+   * back to a plain fixed-point step whenever the Newton step is unusable.
+   *
+   * @param robotPosition Field position of the shooter (the turret, not the robot center).
+   * @param robotVelocity Field-relative velocity of the shooter, including rotation about the
+   *     robot center.
+   * @param goalPosition Field position of the goal.
+   * @param latencySeconds Time until the shot actually happens, the shooter is projected forward by
+   *     this much first.
+   */
   public ShotSolution calculateWithLead(
       Translation2d robotPosition,
       Translation2d robotVelocity,
       Translation2d goalPosition,
       double latencySeconds) {
 
-    Translation2d futurePos = robotPosition.plus(robotVelocity.times(latencySeconds));
+    double vx = robotVelocity.getX();
+    double vy = robotVelocity.getY();
 
-    Translation2d toGoal = goalPosition.minus(futurePos);
-    double distance = toGoal.getNorm();
+    // Goal relative to where the shooter will be when the shot happens
+    double goalX = goalPosition.getX() - (robotPosition.getX() + vx * latencySeconds);
+    double goalY = goalPosition.getY() - (robotPosition.getY() + vy * latencySeconds);
+
+    double distance = Math.hypot(goalX, goalY);
 
     if (distance < 1e-4) {
       return new ShotSolution(0, 0, 0);
     }
 
-    ShotParams baseline = getParams(distance);
+    double tof = shotTable.getTimeOfFlightSeconds(distance);
+    double residual = Double.POSITIVE_INFINITY;
+    int iterations = 0;
+    boolean converged = false;
 
-    double baselineSpeed = (distance / baseline.timeOfFlightSeconds());
+    while (iterations < LEAD_MAX_ITERATIONS) {
+      iterations++;
 
-    Translation2d baselineVelocityVector = toGoal.div(distance).times(baselineSpeed);
+      // Virtual goal for the current time of flight guess
+      double virtualX = goalX - vx * tof;
+      double virtualY = goalY - vy * tof;
+      distance = Math.max(Math.hypot(virtualX, virtualY), 1e-4);
 
-    Translation2d shotVelocity = baselineVelocityVector.minus(robotVelocity);
+      residual = tof - shotTable.getTimeOfFlightSeconds(distance);
+      if (Math.abs(residual) < LEAD_TOLERANCE_SEC) {
+        converged = true;
+        break;
+      }
 
-    double requiredSpeed = shotVelocity.getNorm();
-    Rotation2d turretAngle = shotVelocity.getAngle();
+      // f'(t) = 1 - tof'(d) * d'(t), where d'(t) = -(v . virtual) / d
+      double distanceRate = -(vx * virtualX + vy * virtualY) / distance;
+      double derivative = 1.0 - shotTable.getTimeOfFlightSlope(distance) * distanceRate;
 
-    double speedRatio = requiredSpeed / baselineSpeed;
-    double correctedRPM = baseline.shooterRPM() * speedRatio;
-
-    return new ShotSolution(turretAngle.getDegrees(), baseline.hoodDegrees(), correctedRPM);
-  }
+      // Newton step, or a plain fixed-point step (t = tof(d(t))) when the slope is degenerate
+      double next = Math.abs(derivative) > 1e-3 ? tof - residual / derivative : tof - residual;
+      tof = Math.max(next, 0.0);
+    }
 
-  /* ============================================================
-  INTERNAL
-  ============================================================ */
+    double virtualX = goalX - vx * tof;
+    double virtualY = goalY - vy * tof;
+    distance = Math.max(Math.hypot(virtualX, virtualY), 1e-4);
 
-  private ShotParams getParams(double distance) {
+    double turretDegrees = Math.toDegrees(Math.atan2(virtualY, virtualX));
+    double hood = shotTable.getHoodDegrees(distance);
+    double rpm = shotTable.getShooterRPM(distance);
 
-    double clamped = MathUtil.clamp(distance, minDistance, maxDistance);
+    Logger.recordOutput("Shot/Lead/Iterations", iterations);
+    Logger.recordOutput("Shot/Lead/Converged", converged);
+    Logger.recordOutput("Shot/Lead/ResidualSec", residual);
+    Logger.recordOutput("Shot/Lead/VirtualDistance", distance);
+    Logger.recordOutput("Shot/Lead/TimeOfFlight", tof);
 
-    return shotMap.get(clamped);
+    return new ShotSolution(turretDegrees, hood, rpm);
   }
 }
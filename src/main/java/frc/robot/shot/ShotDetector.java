@@ -0,0 +1,284 @@
+package frc.robot.shot;
+
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants;
+import frc.robot.subsystems.ShootingCoordinator.ShotType;
+import frc.robot.util.LogKeys;
+import frc.robot.util.ReplayStats;
+import org.littletonrobotics.junction.AutoLog;
+
+/**
+ * Detects individual balls leaving the shooter and records the conditions each one was shot under.
+ *
+ * <p>A ball loading the flywheel is the primary signal: a stator current spike above the running
+ * baseline together with a velocity dip below the target. A loader current spike means a ball was
+ * pushed toward the flywheel; if no dip follows within {@link #CONFIRM_SECONDS} the ball is counted
+ * anyway, so a dip too small to detect doesn't lose the shot. Loader spikes only count while the
+ * spindexer is feeding forward, since an unjam reversal loads the loader too.
+ *
+ * <p>Each shot fills the next {@link ShotRecord} in a preallocated ring and is logged once under
+ * Shot/Last/, along with the interval since the previous ball and the cadence of the current feed
+ * burst. When feeding stops the burst totals are logged under Shot/Burst/.
+ *
+ * <p>Only raw device readings are logged as inputs, under Shot/Detector. Feed state and the
+ * flywheel target come from robot code and everything else is recomputed, so replay detects the
+ * same shots, {@link ReplayStats} counts them, and changes to the detection logic show up in
+ * replay. This is the only shot count.
+ */
+public class ShotDetector {
+  private static final int CAPACITY = 64;
+  private static final double REARM_SECONDS = 0.08; // Minimum spacing between shots
+  private static final double CONFIRM_SECONDS = 0.15; // Loader spike to flywheel dip
+  private static final double LOADER_SPIKE_AMPS = 8.0;
+  private static final double LOADER_BASELINE_FILTER = 0.1;
+  private static final double FLYWHEEL_SPIKE_AMPS = 15.0;
+  private static final double FLYWHEEL_DIP_RPS = 2.0;
+  private static final double FLYWHEEL_BASELINE_FILTER = 0.1;
+
+  private static final LogKeys.Key INPUTS = LogKeys.of("Shot/Detector");
+  private static final LogKeys.Key FLYWHEEL_DIP = LogKeys.of("Shot/FlywheelDip");
+  private static final LogKeys.Key FLYWHEEL_BASELINE = LogKeys.of("Shot/FlywheelBaselineAmps");
+  private static final LogKeys.Key TIMESTAMP = LogKeys.of("Shot/Last/Timestamp");
+  private static final LogKeys.Key TYPE = LogKeys.of("Shot/Last/Type");
+  private static final LogKeys.Key DISTANCE = LogKeys.of("Shot/Last/DistanceMeters");
+  private static final LogKeys.Key HOOD = LogKeys.of("Shot/Last/HoodDegrees");
+  private static final LogKeys.Key RPM = LogKeys.of("Shot/Last/ShooterRPM");
+  private static final LogKeys.Key ROBOT_SPEED = LogKeys.of("Shot/Last/RobotSpeedMetersPerSec");
+  private static final LogKeys.Key TURRET_ERROR = LogKeys.of("Shot/Last/TurretErrorDeg");
+  private static final LogKeys.Key FROM_FLYWHEEL = LogKeys.of("Shot/Last/FromFlywheel");
+  private static final LogKeys.Key INTERVAL = LogKeys.of("Shot/Last/IntervalSec");
+  private static final LogKeys.Key CADENCE = LogKeys.of("Shot/Last/CadenceBallsPerSec");
+  private static final LogKeys.Key COUNT = LogKeys.of("Shot/Count");
+  private static final LogKeys.Key BURST_COUNT = LogKeys.of("Shot/Burst/Count");
+  private static final LogKeys.Key BURST_CADENCE = LogKeys.of("Shot/Burst/CadenceBallsPerSec");
+
+  /** Device readings the detector uses, logged so replay sees the robot's values. */
+  @AutoLog
+  public static class ShotDetectorInputs {
+    public boolean spindexerForward = false;
+    public double loaderAmps = 0.0;
+    public double flywheelVelocityRPS = 0.0;
+    public double flywheelStatorAmps = 0.0;
+  }
+
+  /** Conditions when one ball was shot. Instances are preallocated and overwritten. */
+  public static final class ShotRecord {
+    private double timestamp;
+    private ShotType type = ShotType.NONE;
+    private double distanceMeters;
+    private double hoodDegrees;
+    private double shooterRPM;
+    private double robotSpeedMetersPerSec;
+    private double turretErrorDegrees;
+    private boolean fromFlywheel;
+
+    public double timestamp() {
+      return timestamp;
+    }
+
+    public ShotType type() {
+      return type;
+    }
+
+    public double distanceMeters() {
+      return distanceMeters;
+    }
+
+    public double hoodDegrees() {
+      return hoodDegrees;
+    }
+
+    public double shooterRPM() {
+      return shooterRPM;
+    }
+
+    public double robotSpeedMetersPerSec() {
+      return robotSpeedMetersPerSec;
+    }
+
+    public double turretErrorDegrees() {
+      return turretErrorDegrees;
+    }
+
+    /** Whether the flywheel dip was seen, rather than only the loader spike. */
+    public boolean fromFlywheel() {
+      return fromFlywheel;
+    }
+  }
+
+  private final ShotDetectorInputsAutoLogged inputs = new ShotDetectorInputsAutoLogged();
+  private final ShotRecord[] records = new ShotRecord[CAPACITY];
+  private int shotCount = 0;
+
+  private double loaderBaseline = 0.0;
+  private double flywheelBaseline = 0.0;
+  private boolean flywheelRecovering = false;
+  private double pendingSpikeTime = Double.NaN;
+  private double lastShotTime = Double.NaN;
+  private boolean detectedFromFlywheel = false;
+
+  private boolean wasFeeding = false;
+  private int burstShots = 0;
+  private double burstFirstShotTime = Double.NaN;
+
+  public ShotDetector() {
+    for (int i = 0; i < CAPACITY; i++) {
+      records[i] = new ShotRecord();
+    }
+  }
+
+  /**
+   * Logs this loop's device readings as inputs and fuses them. Call once per loop; if it returns
+   * true, call {@link #record} with the current conditions.
+   *
+   * @param feeding Whether the feed gate is open.
+   * @param flywheelTargetRPS Flywheel velocity setpoint.
+   * @param spindexerForward Whether the spindexer is commanded to feed forward.
+   * @param loaderAmps Loader motor current.
+   * @param flywheelVelocityRPS Measured flywheel velocity.
+   * @param flywheelStatorAmps Flywheel stator current.
+   * @return Whether a ball was shot this loop.
+   */
+  public boolean update(
+      boolean feeding,
+      double flywheelTargetRPS,
+      boolean spindexerForward,
+      double loaderAmps,
+      double flywheelVelocityRPS,
+      double flywheelStatorAmps) {
+    inputs.spindexerForward = spindexerForward;
+    inputs.loaderAmps = loaderAmps;
+    inputs.flywheelVelocityRPS = flywheelVelocityRPS;
+    inputs.flywheelStatorAmps = flywheelStatorAmps;
+    LogKeys.processInputs(INPUTS, inputs);
+
+    boolean flywheelDip = detectFlywheelLoad(flywheelTargetRPS) && feeding;
+    LogKeys.record(FLYWHEEL_DIP, flywheelDip);
+    LogKeys.record(FLYWHEEL_BASELINE, flywheelBaseline);
+    return detect(feeding, inputs.spindexerForward, flywheelDip, inputs.loaderAmps);
+  }
+
+  /**
+   * Returns whether something is loading the flywheel, from this loop's inputs. Runs every loop so
+   * the current baseline keeps up; the baseline is only tracked once the flywheel is back within
+   * tolerance of its target, so spikes and spin-up don't drag it up.
+   */
+  private boolean detectFlywheelLoad(double targetRPS) {
+    double statorAmps = inputs.flywheelStatorAmps;
+    double dip = targetRPS - inputs.flywheelVelocityRPS;
+    boolean loaded = statorAmps - flywheelBaseline > FLYWHEEL_SPIKE_AMPS && dip > FLYWHEEL_DIP_RPS;
+    if (loaded) {
+      flywheelRecovering = true;
+    } else if (Math.abs(dip) < Constants.Shooter.RPSTolerance) {
+      flywheelRecovering = false;
+    }
+    if (!flywheelRecovering) {
+      flywheelBaseline += FLYWHEEL_BASELINE_FILTER * (statorAmps - flywheelBaseline);
+    }
+    return loaded;
+  }
+
+  private boolean detect(
+      boolean feeding, boolean spindexerForward, boolean flywheelDip, double loaderAmps) {
+    double now = Timer.getFPGATimestamp();
+
+    if (!feeding && wasFeeding) endBurst();
+    wasFeeding = feeding;
+
+    boolean loaderSpike = loaderAmps - loaderBaseline > LOADER_SPIKE_AMPS;
+    if (!loaderSpike) {
+      loaderBaseline += LOADER_BASELINE_FILTER * (loaderAmps - loaderBaseline);
+    }
+    if (!feeding) {
+      pendingSpikeTime = Double.NaN;
+      return false;
+    }
+
+    boolean rearmed = !(now - lastShotTime < REARM_SECONDS);
+    if (loaderSpike && spindexerForward && rearmed && Double.isNaN(pendingSpikeTime)) {
+      pendingSpikeTime = now;
+    }
+
+    boolean shot = false;
+    if (flywheelDip && rearmed) {
+      shot = true;
+      detectedFromFlywheel = true;
+    } else if (now - pendingSpikeTime > CONFIRM_SECONDS) {
+      shot = rearmed;
+      detectedFromFlywheel = false;
+    }
+    if (shot || now - pendingSpikeTime > CONFIRM_SECONDS) pendingSpikeTime = Double.NaN;
+    return shot;
+  }
+
+  /**
+   * Fills the next record with the conditions for the ball detected this loop and logs it. The
+   * flywheel speed comes from this loop's inputs.
+   */
+  public void record(
+      ShotType type,
+      double distanceMeters,
+      double hoodDegrees,
+      double robotSpeedMetersPerSec,
+      double turretErrorDegrees) {
+    double now = Timer.getFPGATimestamp();
+    ShotRecord record = records[shotCount % CAPACITY];
+    record.timestamp = now;
+    record.type = type;
+    record.distanceMeters = distanceMeters;
+    record.hoodDegrees = hoodDegrees;
+    record.shooterRPM = inputs.flywheelVelocityRPS * 60.0;
+    record.robotSpeedMetersPerSec = robotSpeedMetersPerSec;
+    record.turretErrorDegrees = turretErrorDegrees;
+    record.fromFlywheel = detectedFromFlywheel;
+
+    double interval = now - lastShotTime;
+    lastShotTime = now;
+    shotCount++;
+    if (burstShots == 0) burstFirstShotTime = now;
+    burstShots++;
+    ReplayStats.recordShot();
+
+    LogKeys.record(TIMESTAMP, record.timestamp);
+    LogKeys.record(TYPE, record.type.toString());
+    LogKeys.record(DISTANCE, record.distanceMeters);
+    LogKeys.record(HOOD, record.hoodDegrees);
+    LogKeys.record(RPM, record.shooterRPM);
+    LogKeys.record(ROBOT_SPEED, record.robotSpeedMetersPerSec);
+    LogKeys.record(TURRET_ERROR, record.turretErrorDegrees);
+    LogKeys.record(FROM_FLYWHEEL, record.fromFlywheel);
+    LogKeys.record(INTERVAL, burstShots > 1 ? interval : 0.0);
+    LogKeys.record(CADENCE, getBurstCadence());
+    LogKeys.record(COUNT, shotCount);
+  }
+
+  /** Returns the number of shots detected since boot. */
+  public int getShotCount() {
+    return shotCount;
+  }
+
+  /**
+   * Returns a recent shot, 0 being the latest, or null if it has been overwritten or never
+   * happened.
+   */
+  public ShotRecord getRecord(int shotsAgo) {
+    if (shotsAgo < 0 || shotsAgo >= Math.min(shotCount, CAPACITY)) return null;
+    return records[(shotCount - 1 - shotsAgo) % CAPACITY];
+  }
+
+  /** Returns balls per second over the current feed burst, or 0 before the second ball. */
+  public double getBurstCadence() {
+    if (burstShots < 2) return 0.0;
+    double span = lastShotTime - burstFirstShotTime;
+    return span > 0.0 ? (burstShots - 1) / span : 0.0;
+  }
+
+  private void endBurst() {
+    if (burstShots > 0) {
+      LogKeys.record(BURST_COUNT, burstShots);
+      LogKeys.record(BURST_CADENCE, getBurstCadence());
+    }
+    burstShots = 0;
+    burstFirstShotTime = Double.NaN;
+  }
+}
@@ -0,0 +1,66 @@
+package frc.robot.shot;
+
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants;
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Decides when to open the feed gate from predicted time-to-ready, instead of waiting for every
+ * mechanism to report it's settled.
+ *
+ * <p>A ball takes {@link Constants.Shooter#FeedTransitSeconds} to travel from the feeder to the
+ * flywheel, so the gate opens as soon as the slowest of the flywheel, turret and hood is predicted
+ * to settle within that time. The first ball then arrives as the mechanisms settle rather than one
+ * transit time later.
+ *
+ * <p>Once open the gate stays latched through small disturbances, so a flywheel dip after each
+ * ball doesn't stall the feed. It closes again when the request ends or a mechanism is predicted
+ * to need more than {@link Constants.Shooter#ReadyDropoutSeconds}, such as a turret that has to
+ * swing to a new target. If the predictions never converge the gate opens after {@link
+ * Constants.Shooter#MaxReadyWaitSeconds}, matching the old always-ready behavior, but never while
+ * the turret can't reach its target at all.
+ */
+public class ShotReadiness {
+  private double waitStartTime = Double.NaN;
+  private boolean latched = false;
+
+  /**
+   * Updates the gate. Call once per loop.
+   *
+   * @param requested Whether a shot is requested this loop.
+   * @param shooterSeconds Predicted time until the flywheel is within tolerance.
+   * @param turretSeconds Predicted time until the turret is within tolerance.
+   * @param hoodSeconds Predicted time until the hood reaches its setpoint.
+   * @return Whether to feed.
+   */
+  public boolean update(
+      boolean requested, double shooterSeconds, double turretSeconds, double hoodSeconds) {
+    double timeToReady = Math.max(shooterSeconds, Math.max(turretSeconds, hoodSeconds));
+    double now = Timer.getFPGATimestamp();
+
+    if (!requested) {
+      waitStartTime = Double.NaN;
+      latched = false;
+    } else if (latched) {
+      // Restart the wait so the timeout doesn't reopen the gate right away
+      if (timeToReady > Constants.Shooter.ReadyDropoutSeconds) {
+        latched = false;
+        waitStartTime = now;
+      }
+    } else {
+      if (Double.isNaN(waitStartTime)) waitStartTime = now;
+      boolean predictedReady = timeToReady <= Constants.Shooter.FeedTransitSeconds;
+      boolean timedOut =
+          now - waitStartTime > Constants.Shooter.MaxReadyWaitSeconds
+              && turretSeconds != Double.POSITIVE_INFINITY;
+      if (predictedReady || timedOut) latched = true;
+    }
+
+    Logger.recordOutput("Shot/Readiness/ShooterSec", shooterSeconds);
+    Logger.recordOutput("Shot/Readiness/TurretSec", turretSeconds);
+    Logger.recordOutput("Shot/Readiness/HoodSec", hoodSeconds);
+    Logger.recordOutput("Shot/Readiness/TimeToReadySec", timeToReady);
+    Logger.recordOutput("Shot/Readiness/Latched", latched);
+    return latched;
+  }
+}
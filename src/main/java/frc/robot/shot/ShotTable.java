@@ -0,0 +1,215 @@
+package frc.robot.shot;
+
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * Dense, uniformly sampled shot lookup built from the calibration points.
+ *
+ * <p>Hood angle, flywheel RPM and time of flight are stored as parallel primitive arrays, so a
+ * lookup is one index computation and a lerp with no boxing or allocation. The calibration points
+ * stay the source of truth; rebuild the table whenever they change.
+ */
+public class ShotTable {
+  public enum Interpolation {
+    /** Straight lines between calibration points, matching the old tree map lookup. */
+    LINEAR,
+    /** Fritsch-Carlson monotone cubic, smooth without overshooting between points. */
+    MONOTONE_CUBIC
+  }
+
+  private final double minDistance;
+  private final double maxDistance;
+  private final double invStep;
+  private final double[] hoodDegrees;
+  private final double[] shooterRPM;
+  private final double[] timeOfFlightSeconds;
+
+  /**
+   * Samples the calibration points onto a uniform grid.
+   *
+   * @param points Calibration points keyed by distance in meters, must not be empty.
+   * @param stepMeters Largest grid spacing. The spacing is narrowed so every calibration point,
+   *     to the millimeter, falls on a grid sample.
+   * @param interpolation How to fill the grid between calibration points.
+   */
+  public ShotTable(
+      NavigableMap<Double, ShotParams> points, double stepMeters, Interpolation interpolation) {
+    if (points.isEmpty()) {
+      throw new IllegalArgumentException("Shot table needs at least one calibration point");
+    }
+
+    int knotCount = points.size();
+    double[] knots = new double[knotCount];
+    double[] hoodKnots = new double[knotCount];
+    double[] rpmKnots = new double[knotCount];
+    double[] tofKnots = new double[knotCount];
+    int k = 0;
+    for (Map.Entry<Double, ShotParams> entry : points.entrySet()) {
+      knots[k] = entry.getKey();
+      hoodKnots[k] = entry.getValue().hoodDegrees();
+      rpmKnots[k] = entry.getValue().shooterRPM();
+      tofKnots[k] = entry.getValue().timeOfFlightSeconds();
+      k++;
+    }
+
+    minDistance = knots[0];
+    maxDistance = knots[knotCount - 1];
+    double step = gridStep(knots, stepMeters);
+    int size = (int) Math.round((maxDistance - minDistance) / step) + 1;
+    invStep = 1.0 / step;
+
+    hoodDegrees = sample(knots, hoodKnots, size, step, interpolation);
+    shooterRPM = sample(knots, rpmKnots, size, step, interpolation);
+    timeOfFlightSeconds = sample(knots, tofKnots, size, step, interpolation);
+  }
+
+  /* ===================== Lookup ===================== */
+
+  public double getMinDistance() {
+    return minDistance;
+  }
+
+  public double getMaxDistance() {
+    return maxDistance;
+  }
+
+  /** Returns the hood angle for a distance, clamped to the calibrated range. */
+  public double getHoodDegrees(double distance) {
+    return lookup(hoodDegrees, distance);
+  }
+
+  /** Returns the flywheel RPM for a distance, clamped to the calibrated range. */
+  public double getShooterRPM(double distance) {
+    return lookup(shooterRPM, distance);
+  }
+
+  /** Returns the time of flight for a distance, clamped to the calibrated range. */
+  public double getTimeOfFlightSeconds(double distance) {
+    return lookup(timeOfFlightSeconds, distance);
+  }
+
+  /** Returns d(time of flight)/d(distance) in seconds per meter, zero outside the table. */
+  public double getTimeOfFlightSlope(double distance) {
+    if (timeOfFlightSeconds.length == 1) return 0.0;
+    double x = (distance - minDistance) * invStep;
+    if (!(x >= 0.0) || x > timeOfFlightSeconds.length - 1) return 0.0;
+    int i = Math.min((int) x, timeOfFlightSeconds.length - 2);
+    return (timeOfFlightSeconds[i + 1] - timeOfFlightSeconds[i]) * invStep;
+  }
+
+  /** Returns all parameters for a distance. Allocates, prefer the single value getters in loops. */
+  public ShotParams get(double distance) {
+    return new ShotParams(
+        getHoodDegrees(distance), getShooterRPM(distance), getTimeOfFlightSeconds(distance));
+  }
+
+  private double lookup(double[] table, double distance) {
+    if (table.length == 1) return table[0];
+    double x = (distance - minDistance) * invStep;
+    if (!(x > 0.0)) return table[0]; // Also catches NaN
+    if (x >= table.length - 1) return table[table.length - 1];
+    int i = (int) x;
+    double t = x - i;
+    return table[i] + (table[i + 1] - table[i]) * t;
+  }
+
+  /* ===================== Table Generation ===================== */
+
+  /**
+   * Returns the widest spacing no larger than maxStep that divides every calibration point's offset
+   * from the first, so linear lookups pass through the points instead of cutting their corners.
+   */
+  private static double gridStep(double[] knots, double maxStep) {
+    long commonMm = 0;
+    for (int i = 1; i < knots.length; i++) {
+      long offsetMm = Math.round((knots[i] - knots[0]) * 1000.0);
+      commonMm = gcd(commonMm, offsetMm);
+    }
+    if (commonMm == 0) return 1.0;
+    long divisions = (long) Math.ceil(commonMm / (maxStep * 1000.0));
+    return commonMm / 1000.0 / divisions;
+  }
+
+  private static long gcd(long a, long b) {
+    while (b != 0) {
+      long t = a % b;
+      a = b;
+      b = t;
+    }
+    return a;
+  }
+
+  private static double[] sample(
+      double[] knots, double[] values, int size, double step, Interpolation interpolation) {
+    double[] tangents =
+        interpolation == Interpolation.MONOTONE_CUBIC ? monotoneTangents(knots, values) : null;
+
+    double[] table = new double[size];
+    int segment = 0;
+    for (int i = 0; i < size; i++) {
+      double x = i == size - 1 ? knots[knots.length - 1] : knots[0] + i * step;
+      while (segment < knots.length - 2 && x > knots[segment + 1]) {
+        segment++;
+      }
+      table[i] = evaluate(knots, values, tangents, segment, x);
+    }
+    return table;
+  }
+
+  private static double evaluate(
+      double[] knots, double[] values, double[] tangents, int segment, double x) {
+    if (knots.length == 1) return values[0];
+    double x0 = knots[segment];
+    double h = knots[segment + 1] - x0;
+    double t = (x - x0) / h;
+    double y0 = values[segment];
+    double y1 = values[segment + 1];
+    if (tangents == null) {
+      return y0 + (y1 - y0) * t;
+    }
+
+    // Cubic Hermite basis
+    double t2 = t * t;
+    double t3 = t2 * t;
+    return (2 * t3 - 3 * t2 + 1) * y0
+        + (t3 - 2 * t2 + t) * h * tangents[segment]
+        + (-2 * t3 + 3 * t2) * y1
+        + (t3 - t2) * h * tangents[segment + 1];
+  }
+
+  /** Computes Fritsch-Carlson tangents so the curve never overshoots the calibration points. */
+  private static double[] monotoneTangents(double[] knots, double[] values) {
+    int n = knots.length;
+    double[] tangents = new double[n];
+    if (n < 2) return tangents;
+
+    double[] secants = new double[n - 1];
+    for (int i = 0; i < n - 1; i++) {
+      secants[i] = (values[i + 1] - values[i]) / (knots[i + 1] - knots[i]);
+    }
+
+    tangents[0] = secants[0];
+    tangents[n - 1] = secants[n - 2];
+    for (int i = 1; i < n - 1; i++) {
+      tangents[i] = secants[i - 1] * secants[i] <= 0.0 ? 0.0 : (secants[i - 1] + secants[i]) / 2.0;
+    }
+
+    for (int i = 0; i < n - 1; i++) {
+      if (secants[i] == 0.0) {
+        tangents[i] = 0.0;
+        tangents[i + 1] = 0.0;
+        continue;
+      }
+      double alpha = tangents[i] / secants[i];
+      double beta = tangents[i + 1] / secants[i];
+      double magnitude = alpha * alpha + beta * beta;
+      if (magnitude > 9.0) {
+        double tau = 3.0 / Math.sqrt(magnitude);
+        tangents[i] = tau * alpha * secants[i];
+        tangents[i + 1] = tau * beta * secants[i];
+      }
+    }
+    return tangents;
+  }
+}
@@ -5,11 +5,13 @@ import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 import frc.robot.addons.LinearServo;
+import frc.robot.util.LoopProfiler;
 import java.util.NavigableMap;
 import java.util.TreeMap;
 import org.littletonrobotics.junction.AutoLogOutput;
 
 public class Hood extends SubsystemBase {
+  private final LoopProfiler.Section profilerSection = LoopProfiler.section("Hood");
 
   private final boolean hardwareEnabled = Constants.Hood.HardwareEnabled;
 
@@ -32,6 +34,10 @@ public class Hood extends SubsystemBase {
   @AutoLogOutput private double lastCommandedMm = 0.0;
   private double motionCompleteTime = 0.0;
 
+  // Estimated actuator position, moved toward the command at MM_PER_SECOND
+  @AutoLogOutput private double estimatedMm = 0.0;
+  private double lastEstimateTime = 0.0;
+
   // Spec: 20 mm/sec
   private static final double MM_PER_SECOND = 20.0;
 
@@ -42,6 +48,12 @@ public class Hood extends SubsystemBase {
     }
   }
 
+  @Override
+  public void periodic() {
+    profilerSection.enter();
+    updateEstimate();
+  }
+
   /* ===================== Public API ===================== */
 
   public void setPositionAngle(double degrees) {
@@ -53,8 +65,10 @@ public class Hood extends SubsystemBase {
 
     positionMm = MathUtil.clamp(positionMm, Constants.Hood.minHood, Constants.Hood.maxHood);
 
-    // Estimate time to move
-    double distance = Math.abs(positionMm - lastCommandedMm);
+    // Estimate time to move from where the actuator is now, so repeating a command every loop
+    // doesn't reset the estimate
+    updateEstimate();
+    double distance = Math.abs(positionMm - estimatedMm);
     // if (distance <= Constants.Hood.distanceToleranceMM)
     //  return; // don't command the servo repeatedly
     double travelTime = distance / MM_PER_SECOND;
@@ -115,8 +129,20 @@ public class Hood extends SubsystemBase {
     return Timer.getFPGATimestamp() >= motionCompleteTime;
   }
 
+  /** Returns the predicted time until the hood reaches its last commanded position. */
+  public double getTimeToSetpointSeconds() {
+    return Math.max(0.0, motionCompleteTime - Timer.getFPGATimestamp());
+  }
+
   /* ===================== Helpers ===================== */
 
+  private void updateEstimate() {
+    double now = Timer.getFPGATimestamp();
+    double maxStep = MM_PER_SECOND * (now - lastEstimateTime);
+    estimatedMm += MathUtil.clamp(lastCommandedMm - estimatedMm, -maxStep, maxStep);
+    lastEstimateTime = now;
+  }
+
   private double angleToMm(double degrees) {
 
     degrees = MathUtil.clamp(degrees, ANGLE_TO_MM.firstKey(), ANGLE_TO_MM.lastKey());
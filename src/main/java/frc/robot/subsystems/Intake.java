@@ -14,11 +14,17 @@ import com.ctre.phoenix6.signals.MotorAlignmentValue;
 import com.ctre.phoenix6.signals.NeutralModeValue;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import frc.robot.util.ConfigApplier;
+import frc.robot.util.FlightRecorder;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.SignalRegistry;
+import frc.robot.util.SignalRegistry.CachedSignal;
 import org.littletonrobotics.junction.AutoLogOutput;
 import org.littletonrobotics.junction.Logger;
 import org.littletonrobotics.junction.networktables.LoggedNetworkNumber;
 
 public class Intake extends SubsystemBase {
+  private final LoopProfiler.Section profilerSection = LoopProfiler.section("Intake");
 
   private final boolean hardwareEnabled = Constants.Intake.HardwareEnabled;
 
@@ -29,6 +35,13 @@ public class Intake extends SubsystemBase {
 
   private CANcoder armEncoder;
 
+  // Cached status signals, refreshed once per loop by SignalRegistry
+  private CachedSignal armAbsolutePosition;
+  private CachedSignal armSupplyCurrent;
+  private CachedSignal armMotorVoltage;
+  private CachedSignal rollerVelocity;
+  private CachedSignal rollerSupplyCurrent;
+
   private final VoltageOut armVoltage = new VoltageOut(0.0);
 
   private static final double ARM_MIN = 0;
@@ -138,6 +151,16 @@ public class Intake extends SubsystemBase {
       armEncoder = new CANcoder(Constants.Intake.ArmEncoder);
       configureArmMotors();
       configureRollers();
+
+      armAbsolutePosition = SignalRegistry.register(armEncoder.getAbsolutePosition(false));
+      armSupplyCurrent = SignalRegistry.register(armLeader.getSupplyCurrent(false));
+      armMotorVoltage = SignalRegistry.register(armLeader.getMotorVoltage(false));
+      rollerVelocity = SignalRegistry.register(rollerLeft.getVelocity(false));
+      rollerSupplyCurrent = SignalRegistry.register(rollerLeft.getSupplyCurrent(false));
+
+      FlightRecorder.addSignal("Intake/RollerVelocityRPS", rollerLeft.getVelocity(false));
+      FlightRecorder.addSignal("Intake/RollerStatorCurrent", rollerLeft.getStatorCurrent(false));
+      FlightRecorder.addSignal("Intake/ArmSupplyCurrent", armLeader.getSupplyCurrent(false));
       lastArmLimit = armCurrentLimit.get();
       armTargetDegrees = getArmDegrees(); // don't move on start
     }
@@ -221,13 +244,13 @@ public class Intake extends SubsystemBase {
   @AutoLogOutput
   private double getArmDegrees() {
     if (!hardwareEnabled) return 0.0;
-    return armEncoder.getAbsolutePosition().getValueAsDouble() * 360.0;
+    return armAbsolutePosition.getValue() * 360.0;
   }
 
   @AutoLogOutput
   private double getArmRotations() {
     if (!hardwareEnabled) return 0.0;
-    return armEncoder.getAbsolutePosition().getValueAsDouble();
+    return armAbsolutePosition.getValue();
   }
 
   public void jogDown() {
@@ -246,10 +269,11 @@ public class Intake extends SubsystemBase {
 
   @Override
   public void periodic() {
+    profilerSection.enter();
 
     if (hardwareEnabled && closedloopControl) {
       // Velocity (in rotations per second by default)
-      double rps = rollerLeft.getVelocity().getValueAsDouble();
+      double rps = rollerVelocity.getValue();
       boolean tryingToRun = Math.abs(rollerCommanded) > 1000; // or some % threshold
 
       // Convert to RPM to match your old code
@@ -265,6 +289,7 @@ public class Intake extends SubsystemBase {
       else jamTimer = 0;
 
       if (jamTimer > 0.1 && clearMode == ClearMode.NONE) {
+        FlightRecorder.trigger("IntakeJam");
         requestJamClear();
       }
 
@@ -274,7 +299,7 @@ public class Intake extends SubsystemBase {
 
       double newLimit = armCurrentLimit.get();
       if (Math.abs(newLimit - lastArmLimit) > 1e-6) {
-        applyArmCurrentLimit(newLimit);
+        requestArmCurrentLimit(newLimit);
         lastArmLimit = newLimit;
       }
 
@@ -363,6 +388,17 @@ public class Intake extends SubsystemBase {
     armFollower.getConfigurator().apply(limits);
   }
 
+  /** Applies a new arm current limit on the config worker so the loop never waits on CAN. */
+  private void requestArmCurrentLimit(double limit) {
+    CurrentLimitsConfigs limits =
+        new CurrentLimitsConfigs().withSupplyCurrentLimitEnable(true).withSupplyCurrentLimit(limit);
+
+    ConfigApplier.submit(
+        "Intake/ArmLeader/CurrentLimits", () -> armLeader.getConfigurator().apply(limits));
+    ConfigApplier.submit(
+        "Intake/ArmFollower/CurrentLimits", () -> armFollower.getConfigurator().apply(limits));
+  }
+
   /* ===================== Public Control ===================== */
 
   // Arm
@@ -464,25 +500,25 @@ public class Intake extends SubsystemBase {
 
   private void logTelemetry() {
 
-    double armSupplyCurrent = 0.0;
+    double armSupplyAmps = 0.0;
     double rollerLeftCurrent = 0.0;
     // double rollerRightCurrent = 0.0;
     double appliedVoltage = 0;
     double armAngle = 0.0;
 
     if (hardwareEnabled) {
-      armSupplyCurrent = armLeader.getSupplyCurrent().getValueAsDouble();
-      rollerLeftCurrent = rollerLeft.getSupplyCurrent().getValueAsDouble();
+      armSupplyAmps = armSupplyCurrent.getValue();
+      rollerLeftCurrent = rollerSupplyCurrent.getValue();
       // rollerLeftCurrent = rollerLeft.getOutputCurrent();
       // rollerRightCurrent = rollerRight.getOutputCurrent();
       armAngle = getArmDegrees();
-      appliedVoltage = armLeader.getMotorVoltage().getValueAsDouble();
+      appliedVoltage = armMotorVoltage.getValue();
 
       isAtAngle = (Math.abs(armAngle - armTargetDegrees) < Constants.Intake.armTolerance);
     }
 
     Logger.recordOutput("Intake/ArmPercent", armCommanded);
-    Logger.recordOutput("Intake/ArmSupplyCurrent", armSupplyCurrent);
+    Logger.recordOutput("Intake/ArmSupplyCurrent", armSupplyAmps);
     Logger.recordOutput("Intake/RollerPercent", rollerCommanded);
     Logger.recordOutput("Intake/RollerLeftCurrent", rollerLeftCurrent);
     // Logger.recordOutput("Intake/RollerRightCurrent", rollerRightCurrent);
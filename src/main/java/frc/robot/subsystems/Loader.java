@@ -3,10 +3,12 @@ package frc.robot.subsystems;
 import com.revrobotics.spark.SparkFlex;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import frc.robot.util.LoopProfiler;
 import org.littletonrobotics.junction.Logger;
 import org.littletonrobotics.junction.networktables.LoggedNetworkNumber;
 
 public class Loader extends SubsystemBase {
+  private final LoopProfiler.Section profilerSection = LoopProfiler.section("Loader");
 
   private final boolean hardwareEnabled = Constants.Loader.HardwareEnabled;
 
@@ -35,6 +37,7 @@ public class Loader extends SubsystemBase {
 
   @Override
   public void periodic() {
+    profilerSection.enter();
 
     logTelemetry();
   }
@@ -65,6 +68,15 @@ public class Loader extends SubsystemBase {
     setPercentOutput(percent);
   }
 
+  public double getCurrentAmps() {
+    if (!hardwareEnabled) return 0.0;
+    return motor.getOutputCurrent();
+  }
+
+  public boolean isRunning() {
+    return running;
+  }
+
   private void setPercentOutput(double percent) {
     if (!hardwareEnabled) return;
 
@@ -7,11 +7,13 @@ import edu.wpi.first.math.geometry.Transform3d;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.subsystems.drive.*;
+import frc.robot.util.LoopProfiler;
 import gg.questnav.questnav.PoseFrame;
 import gg.questnav.questnav.QuestNav;
 import org.littletonrobotics.junction.AutoLogOutput;
 
 public class QuestNavSub extends SubsystemBase {
+  private final LoopProfiler.Section profilerSection = LoopProfiler.section("QuestNav");
 
   public enum PositionStatus {
     RECEIVING_FROM_ROBOT,
@@ -63,6 +65,7 @@ public class QuestNavSub extends SubsystemBase {
 
   @Override
   public void periodic() {
+    profilerSection.enter();
     if (currentPositionStatus == PositionStatus.SENDING_TO_ROBOT) {
       // Get the latest pose data frames from the Quest
       PoseFrame[] questFrames = questNav.getAllUnreadPoseFrames();
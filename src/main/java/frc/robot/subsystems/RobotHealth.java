@@ -9,9 +9,13 @@ import frc.robot.FieldConstants;
 import frc.robot.FlipUtil;
 import frc.robot.subsystems.drive.*;
 import frc.robot.subsystems.vision.Vision;
+import frc.robot.util.FlightRecorder;
+import frc.robot.util.LoopProfiler;
 import org.littletonrobotics.junction.AutoLogOutput;
 
 public class RobotHealth extends SubsystemBase {
+  private final LoopProfiler.Section profilerSection = LoopProfiler.section("RobotHealth");
+
   @AutoLogOutput public boolean PoseHealthy = true;
   @AutoLogOutput public boolean PoseJump = false;
   @AutoLogOutput public boolean YawDisagreement = false;
@@ -47,8 +51,13 @@ public class RobotHealth extends SubsystemBase {
 
   @Override
   public void periodic() {
+    profilerSection.enter();
     newPose2d = m_Drivetrain.getPose(); // get fused position from all sources
-    PoseJump = poseHasJumped();
+    boolean jumped = poseHasJumped();
+    if (jumped && !PoseJump) {
+      FlightRecorder.trigger("PoseJump");
+    }
+    PoseJump = jumped;
 
     YawDisagreement = YawDisagreement();
 
@@ -118,14 +127,11 @@ public class RobotHealth extends SubsystemBase {
 
     inOpponentZone = updateWithHysteresis(inOpponentZone, oppEnter, oppExit);
 
-    Translation2d trench1 =
-        FlipUtil.apply(FieldConstants.LeftTrench.openingTopLeft.toTranslation2d());
-    Translation2d trench2 =
-        FlipUtil.apply(FieldConstants.LeftTrench.openingTopRight.toTranslation2d());
-    Translation2d trench3 =
-        FlipUtil.apply(FieldConstants.RightTrench.openingTopLeft.toTranslation2d());
-    Translation2d trench4 =
-        FlipUtil.apply(FieldConstants.RightTrench.openingTopRight.toTranslation2d());
+    Translation2d[] trenchOpenings = FlipUtil.getTrenchOpenings();
+    Translation2d trench1 = trenchOpenings[0];
+    Translation2d trench2 = trenchOpenings[1];
+    Translation2d trench3 = trenchOpenings[2];
+    Translation2d trench4 = trenchOpenings[3];
 
     double robotX = pose.getX();
 
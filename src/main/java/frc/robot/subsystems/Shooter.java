@@ -6,16 +6,29 @@ import com.ctre.phoenix6.hardware.TalonFX;
 import com.ctre.phoenix6.signals.NeutralModeValue;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import frc.robot.util.FlightRecorder;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.SignalRegistry;
+import frc.robot.util.SignalRegistry.CachedSignal;
 import org.littletonrobotics.junction.AutoLogOutput;
 import org.littletonrobotics.junction.Logger;
+import org.littletonrobotics.junction.networktables.LoggedNetworkBoolean;
+import org.littletonrobotics.junction.networktables.LoggedNetworkNumber;
 
 public class Shooter extends SubsystemBase {
+  private final LoopProfiler.Section profilerSection = LoopProfiler.section("Shooter");
 
   private final boolean hardwareEnabled = Constants.Shooter.HardwareEnabled;
 
   private TalonFX leader;
   // private TalonFX follower;
 
+  // Cached status signals, refreshed once per loop by SignalRegistry
+  private CachedSignal velocity;
+  private CachedSignal statorCurrent;
+  private CachedSignal supplyCurrent;
+  private CachedSignal motorVoltage;
+
   // Control requests (reuse objects)
   private final VoltageOut voltageOut = new VoltageOut(0.0);
   private final VelocityVoltage velocityFOC = new VelocityVoltage(0.0);
@@ -35,6 +48,10 @@ public class Shooter extends SubsystemBase {
   private static final double kP = 0.1;
   private static final double kD = 0.0;
   private static final double kV = 0.1159;
+  // Not used by the controller, only to predict spin-up when the measured acceleration is too small
+  // to use. Estimated from a ~0.4 s spin-up time constant (kA / kV), not characterized.
+  private static final double kA = 0.05;
+  private static final double MODEL_VOLTS = 12.0;
 
   // State
   private boolean closedLoop = true;
@@ -45,6 +62,50 @@ public class Shooter extends SubsystemBase {
 
   private static final double STABLE_TIME = 0.10; // seconds
 
+  // Measured acceleration for time-to-ready predictions, low-pass filtered
+  private static final double ACCELERATION_FILTER = 0.3;
+  private static final double MIN_CLOSING_RATE_RPS_PER_SEC = 1.0;
+  private double accelerationRPSPerSec = 0.0;
+  private double lastVelocityRPS = 0.0;
+
+  /* ===================== Ball Compensation ===================== */
+
+  // Extra voltage on top of the closed loop, starting just before each expected ball. Switchable
+  // and tunable from the dashboard:
+  //  1. With Shooter/BallCompensation off, fire a few bursts and note Shooter/AvgRecoverySec and
+  //     the dip in Shooter/RPMError at each ball.
+  //  2. Turn it on and fire the same bursts.
+  //  3. Raise Shooter/BallCompensationVolts until the dip shrinks, backing off once
+  //     Shooter/RPMError overshoots above the target.
+  //  4. Adjust Shooter/BallCompensationLeadSec so Shooter/BoostVolts rises just before the spike
+  //     in Shot/Detector/FlywheelStatorAmps.
+  //  5. Copy the values into the defaults here and Constants.Shooter.BallCompensation.
+  private final LoggedNetworkBoolean ballCompensation =
+      new LoggedNetworkBoolean("Shooter/BallCompensation", Constants.Shooter.BallCompensation);
+  private final LoggedNetworkNumber boostSetVolts =
+      new LoggedNetworkNumber("Shooter/BallCompensationVolts", 1.5);
+  private final LoggedNetworkNumber boostLeadSeconds =
+      new LoggedNetworkNumber("Shooter/BallCompensationLeadSec", 0.02);
+  private static final double BOOST_SECONDS = 0.10;
+  private static final double LOOP_PERIOD_SECONDS = 0.02; // Each request is held one loop
+
+  // Ball interval estimate, seeded from the feeder rate and refined from shots ShotDetector reports
+  private static final double DEFAULT_BALL_INTERVAL_SECONDS = 0.25;
+  private static final double MAX_BALL_INTERVAL_SECONDS = 1.0;
+  private static final double INTERVAL_FILTER = 0.3;
+  private static final double RECOVERY_FILTER = 0.2;
+
+  private boolean feeding = false;
+  private double feedStartTime = Double.NaN;
+  private double lastShotTime = Double.NaN;
+  private double ballIntervalSeconds = DEFAULT_BALL_INTERVAL_SECONDS;
+  private double boostUntil = 0.0;
+  private double boostVolts = 0.0;
+  private boolean recovering = false;
+  private int shotsFired = 0;
+  private double lastRecoverySeconds = 0.0;
+  private double averageRecoverySeconds = 0.0;
+
   // Config reused
   private final TalonFXConfiguration config = new TalonFXConfiguration();
 
@@ -83,60 +144,127 @@ public class Shooter extends SubsystemBase {
       leader.getSupplyCurrent().setUpdateFrequency(100);
       leader.getMotorVoltage().setUpdateFrequency(100);
       leader.optimizeBusUtilization();
+
+      velocity = SignalRegistry.register(leader.getVelocity(false));
+      statorCurrent = SignalRegistry.register(leader.getStatorCurrent(false));
+      supplyCurrent = SignalRegistry.register(leader.getSupplyCurrent(false));
+      motorVoltage = SignalRegistry.register(leader.getMotorVoltage(false));
+
+      FlightRecorder.addSignal("Shooter/VelocityRPS", leader.getVelocity(false));
+      FlightRecorder.addSignal("Shooter/StatorCurrent", leader.getStatorCurrent(false));
     }
   }
 
   @Override
   public void periodic() {
+    profilerSection.enter();
 
     if (hardwareEnabled && closedLoop) {
       double rpm = targetRPM;
       double rps = rpm / 60.0;
       lastTargetRPS = rps;
 
-      leader.setControl(velocityFOC.withVelocity(rps));
       double now = edu.wpi.first.wpilibj.Timer.getFPGATimestamp();
       double dt = now - lastTimestamp;
       lastTimestamp = now;
 
-      double velocityRPS = hardwareEnabled ? leader.getVelocity().getValueAsDouble() : 0.0;
+      double velocityRPS = hardwareEnabled ? velocity.getValue() : 0.0;
 
       double error = Math.abs(velocityRPS - lastTargetRPS);
 
+      if (dt > 0.0 && dt < 0.1) {
+        double rawAcceleration = (velocityRPS - lastVelocityRPS) / dt;
+        accelerationRPSPerSec += ACCELERATION_FILTER * (rawAcceleration - accelerationRPSPerSec);
+      }
+      lastVelocityRPS = velocityRPS;
+
       if (error < Constants.Shooter.RPSTolerance) {
         timeWithinTolerance += dt;
       } else {
         timeWithinTolerance = 0.0;
       }
+
+      updateRecovery(now, velocityRPS);
+      updateBoost(now);
+      leader.setControl(velocityFOC.withVelocity(rps).withFeedForward(boostVolts));
+    } else {
+      boostVolts = 0.0;
     }
 
     logTelemetry();
   }
 
+  /**
+   * Measures velocity recovery after each ball, from the shot until the flywheel is back within
+   * tolerance.
+   */
+  private void updateRecovery(double now, double velocityRPS) {
+    if (recovering && Math.abs(lastTargetRPS - velocityRPS) < Constants.Shooter.RPSTolerance) {
+      lastRecoverySeconds = now - lastShotTime;
+      averageRecoverySeconds =
+          averageRecoverySeconds == 0.0
+              ? lastRecoverySeconds
+              : averageRecoverySeconds
+                  + RECOVERY_FILTER * (lastRecoverySeconds - averageRecoverySeconds);
+      recovering = false;
+    }
+  }
+
+  /**
+   * Sets boostVolts for the request sent now.
+   *
+   * <p>While feeding, each ball is expected one ball interval after the last shot (or one feed
+   * transit time after feeding starts, for the first). The boost starts slightly before the
+   * expected ball so the flywheel has extra torque as the ball loads it, and stays on after a shot
+   * until the boost window ends. The request is held until the next loop, so the boost starts once
+   * the expected ball is within one loop plus the lead.
+   */
+  private void updateBoost(double now) {
+    // Next expected ball, from the last shot or from the start of feeding
+    double expected = Double.NaN;
+    if (feeding) {
+      expected =
+          lastShotTime > feedStartTime
+              ? lastShotTime + ballIntervalSeconds
+              : feedStartTime + Constants.Shooter.FeedTransitSeconds;
+    }
+    boolean anticipating =
+        now >= expected - boostLeadSeconds.get() - LOOP_PERIOD_SECONDS
+            && now < expected + BOOST_SECONDS;
+    boolean boosting = ballCompensation.get() && (anticipating || now < boostUntil);
+    boostVolts = boosting ? boostSetVolts.get() : 0.0;
+  }
+
   private void logTelemetry() {
 
     double velocityRPM = 0.0;
-    double statorCurrent = 0.0;
-    double supplyCurrent = 0.0;
+    double statorAmps = 0.0;
+    double supplyAmps = 0.0;
     double appliedVolts = 0.0;
 
     if (hardwareEnabled) {
-      double velocityRPS = leader.getVelocity().getValueAsDouble();
+      double velocityRPS = velocity.getValue();
       velocityRPM = velocityRPS * 60.0;
-      statorCurrent = leader.getStatorCurrent().getValueAsDouble();
-      supplyCurrent = leader.getSupplyCurrent().getValueAsDouble();
-      appliedVolts = leader.getMotorVoltage().getValueAsDouble();
-      Logger.recordOutput(
-          "Shooter/RPMError", (leader.getVelocity().getValueAsDouble() - lastTargetRPS) * 60.0);
+      statorAmps = statorCurrent.getValue();
+      supplyAmps = supplyCurrent.getValue();
+      appliedVolts = motorVoltage.getValue();
+      Logger.recordOutput("Shooter/RPMError", (velocityRPS - lastTargetRPS) * 60.0);
     }
 
     Logger.recordOutput("Shooter/VelocityRPM", velocityRPM);
-    Logger.recordOutput("Shooter/StatorCurrent", statorCurrent);
-    Logger.recordOutput("Shooter/SupplyCurrent", supplyCurrent);
+    Logger.recordOutput("Shooter/StatorCurrent", statorAmps);
+    Logger.recordOutput("Shooter/SupplyCurrent", supplyAmps);
     Logger.recordOutput("Shooter/AppliedVolts", appliedVolts);
     Logger.recordOutput("Shooter/ClosedLoop", closedLoop);
     Logger.recordOutput("Shooter/HardwareEnabled", hardwareEnabled);
     Logger.recordOutput("Shooter/StableTime", timeWithinTolerance);
+    Logger.recordOutput("Shooter/AccelerationRPSPerSec", accelerationRPSPerSec);
+    Logger.recordOutput("Shooter/Feeding", feeding);
+    Logger.recordOutput("Shooter/ShotsFired", shotsFired);
+    Logger.recordOutput("Shooter/BallIntervalSec", ballIntervalSeconds);
+    Logger.recordOutput("Shooter/BoostVolts", boostVolts);
+    Logger.recordOutput("Shooter/LastRecoverySec", lastRecoverySeconds);
+    Logger.recordOutput("Shooter/AvgRecoverySec", averageRecoverySeconds);
   }
 
   // =====================
@@ -157,7 +285,7 @@ public class Shooter extends SubsystemBase {
 
     if (hardwareEnabled) {
 
-      double appliedVolts = leader.getMotorVoltage().getValueAsDouble();
+      double appliedVolts = motorVoltage.getValue();
       double oldpercent = appliedVolts / 12.0;
       double newPercent = oldpercent + percent;
       if (newPercent == 0) newPercent = Math.signum(percent) * .01;
@@ -189,13 +317,109 @@ public class Shooter extends SubsystemBase {
     timeWithinTolerance = 0.0; // reset stability
   }
 
+  /**
+   * Tells the flywheel whether balls are being fed, so it can anticipate them. Call every loop from
+   * whatever drives the feeder. The feeder is usually decided after this subsystem's periodic(), so
+   * a change in the boost is sent right away instead of waiting a loop.
+   */
+  public void setFeeding(boolean feeding) {
+    double now = edu.wpi.first.wpilibj.Timer.getFPGATimestamp();
+    if (feeding && !this.feeding) {
+      feedStartTime = now;
+    }
+    this.feeding = feeding;
+
+    resendBoost(now);
+  }
+
+  /**
+   * Tells the flywheel a ball just went through it. Called by whatever runs ShotDetector, which is
+   * the one place shots are detected. Refines the ball interval, starts the recovery timer and
+   * holds the boost on, sending the change right away.
+   */
+  public void onShotDetected() {
+    double now = edu.wpi.first.wpilibj.Timer.getFPGATimestamp();
+    double interval = now - lastShotTime;
+    if (interval < MAX_BALL_INTERVAL_SECONDS) {
+      ballIntervalSeconds += INTERVAL_FILTER * (interval - ballIntervalSeconds);
+    }
+    lastShotTime = now;
+    shotsFired++;
+    boostUntil = Math.max(boostUntil, now + BOOST_SECONDS);
+    recovering = true;
+    resendBoost(now);
+  }
+
+  /** Returns the number of balls ShotDetector has reported since boot, the same as Shot/Count. */
+  public int getShotsFired() {
+    return shotsFired;
+  }
+
+  /** Re-evaluates the boost and resends the closed loop request if it changed. */
+  private void resendBoost(double now) {
+    if (hardwareEnabled && closedLoop) {
+      double previousBoost = boostVolts;
+      updateBoost(now);
+      if (boostVolts != previousBoost) {
+        leader.setControl(velocityFOC.withVelocity(lastTargetRPS).withFeedForward(boostVolts));
+      }
+    }
+  }
+
+  /** Returns the time from the last detected ball until the flywheel was back within tolerance. */
+  public double getLastRecoverySeconds() {
+    return lastRecoverySeconds;
+  }
+
+  /** Returns the filtered recovery time across detected balls. */
+  public double getAverageRecoverySeconds() {
+    return averageRecoverySeconds;
+  }
+
   public double getVelocityRPM() {
     if (!hardwareEnabled) return 0.0;
-    return leader.getVelocity().getValueAsDouble() * 60.0;
+    return velocity.getValue() * 60.0;
+  }
+
+  public double getVelocityRPS() {
+    if (!hardwareEnabled) return 0.0;
+    return velocity.getValue();
+  }
+
+  public double getStatorCurrentAmps() {
+    if (!hardwareEnabled) return 0.0;
+    return statorCurrent.getValue();
+  }
+
+  /** Returns the last closed loop velocity target. */
+  public double getTargetRPS() {
+    return lastTargetRPS;
   }
 
   public boolean isAtSetpoint() {
     if (!hardwareEnabled) return false;
     return timeWithinTolerance > STABLE_TIME;
   }
+
+  /**
+   * Predicts the time until the flywheel is within tolerance, from the current error and measured
+   * acceleration. When the flywheel isn't measurably closing on the target (just commanded, or a
+   * steady offset) it falls back to the full-voltage acceleration from kV and kA. Returns zero in
+   * simulation, which has no flywheel physics to predict.
+   */
+  public double getTimeToSetpointSeconds() {
+    if (Constants.currentMode == Constants.Mode.SIM) return 0.0;
+    if (!hardwareEnabled || !closedLoop) return Double.POSITIVE_INFINITY;
+    double velocityRPS = velocity.getValue();
+    double error = lastTargetRPS - velocityRPS;
+    double excess = Math.abs(error) - Constants.Shooter.RPSTolerance;
+    if (excess <= 0.0) return 0.0;
+    double closingRate = accelerationRPSPerSec * Math.signum(error);
+    if (closingRate < MIN_CLOSING_RATE_RPS_PER_SEC) {
+      // Back EMF works against speeding up and with slowing down
+      closingRate = (MODEL_VOLTS - Math.signum(error) * kV * velocityRPS) / kA;
+      if (closingRate <= 0.0) return Double.POSITIVE_INFINITY;
+    }
+    return excess / closingRate;
+  }
 }
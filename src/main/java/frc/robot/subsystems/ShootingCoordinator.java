@@ -7,12 +7,16 @@ import frc.robot.Constants;
 import frc.robot.FieldConstants;
 import frc.robot.FlipUtil;
 import frc.robot.shot.ShotController;
+import frc.robot.shot.ShotDetector;
+import frc.robot.shot.ShotReadiness;
 import frc.robot.shot.ShotSolution;
 import frc.robot.subsystems.drive.Drive;
+import frc.robot.util.LoopProfiler;
 import org.littletonrobotics.junction.AutoLogOutput;
 import org.littletonrobotics.junction.Logger;
 
 public class ShootingCoordinator extends SubsystemBase {
+  private final LoopProfiler.Section profilerSection = LoopProfiler.section("Coordinator");
 
   public enum ShootingMode {
     MANUAL,
@@ -44,11 +48,14 @@ public class ShootingCoordinator extends SubsystemBase {
   private final RobotHealth robotHealth;
   private final ShotController shotController;
   private final Drive drive;
+  private final ShotReadiness readiness = new ShotReadiness();
+  private final ShotDetector shotDetector = new ShotDetector();
 
   /* ===================== State ===================== */
 
   @AutoLogOutput private ShootingMode currentMode = ShootingMode.MANUAL;
   private boolean requestShot = false;
+  private double commandedHoodDegrees = 0.0;
   @AutoLogOutput private ShotType currentShotType = ShotType.NONE;
 
   // private boolean timingShot = false;
@@ -132,6 +139,7 @@ public class ShootingCoordinator extends SubsystemBase {
 
   @Override
   public void periodic() {
+    profilerSection.enter();
 
     currentShotType = determineShotType();
 
@@ -155,7 +163,7 @@ public class ShootingCoordinator extends SubsystemBase {
     switch (currentShotType) {
       case SHOOT:
         Unflippedtarget = FieldConstants.Hub.innerCenterPoint.toTranslation2d();
-        target = FlipUtil.apply(Unflippedtarget);
+        target = FlipUtil.getHubCenter();
         // target = Unflippedtarget; // ????
         break;
       case PASS:
@@ -178,8 +186,7 @@ public class ShootingCoordinator extends SubsystemBase {
       switch (currentShotType) {
         case SHOOT:
           ShotSolution solution =
-              shotController.calculate(
-                  getTurretFieldPosition(), drive.getFieldRelativeVelocity(), target);
+              shotController.calculate(getTurretFieldPosition(), getTurretFieldVelocity(), target);
 
           if (currentMode == ShootingMode.AUTO_AIM) {
             turret.setFieldTargetAngle(
@@ -187,7 +194,8 @@ public class ShootingCoordinator extends SubsystemBase {
                 drive.getRotation(),
                 Math.toDegrees(drive.getChassisSpeeds().omegaRadiansPerSecond));
           }
-          hood.setPositionMm(solution.hoodDegrees() + hoodTrim);
+          commandedHoodDegrees = solution.hoodDegrees() + hoodTrim;
+          hood.setPositionMm(commandedHoodDegrees);
           // if (!DriverStation.isAutonomous())
           shooter.setTargetRPM(solution.shooterRPM());
           // else shooter.setTargetRPM(500);
@@ -196,15 +204,15 @@ public class ShootingCoordinator extends SubsystemBase {
 
         case PASS:
           ShotSolution passSolution =
-              shotController.calculate(
-                  getTurretFieldPosition(), drive.getFieldRelativeVelocity(), target);
+              shotController.calculate(getTurretFieldPosition(), getTurretFieldVelocity(), target);
           if (currentMode == ShootingMode.AUTO_AIM) {
             turret.setFieldTargetAngle(
                 passSolution.turretDegrees() + shotTrim,
                 drive.getRotation(),
                 Math.toDegrees(drive.getChassisSpeeds().omegaRadiansPerSecond));
           }
-          hood.setPositionMm(passSolution.hoodDegrees() + hoodTrim);
+          commandedHoodDegrees = passSolution.hoodDegrees() + hoodTrim;
+          hood.setPositionMm(commandedHoodDegrees);
           shooter.setTargetRPM(passSolution.shooterRPM());
           break;
 
@@ -238,16 +246,20 @@ public class ShootingCoordinator extends SubsystemBase {
     // ----------------------------
     // Readiness Check
     // ----------------------------
-    boolean readyToFire = true;
-    // speedGate && turret.isAtSetpoint() && hood.isAtSetpoint() && robotHealth.fieldReady;
+    // Opens early so the first ball reaches the flywheel as the mechanisms settle
+    boolean shotRequested =
+        requestShot && (currentShotType == ShotType.SHOOT || currentShotType == ShotType.PASS);
+    boolean readyToFire =
+        readiness.update(
+            shotRequested,
+            shooter.getTimeToSetpointSeconds(),
+            turret.getTimeToAimSeconds(),
+            hood.getTimeToSetpointSeconds());
 
     // ----------------------------
     // Feed Gate
     // ----------------------------
-    boolean allowFeed =
-        requestShot
-            && readyToFire
-            && (currentShotType == ShotType.SHOOT || currentShotType == ShotType.PASS);
+    boolean allowFeed = shotRequested && readyToFire;
 
     if (allowFeed) {
       spindexer.feed();
@@ -256,6 +268,28 @@ public class ShootingCoordinator extends SubsystemBase {
       spindexer.stop();
       loader.stop();
     }
+    shooter.setFeeding(allowFeed);
+
+    // ----------------------------
+    // Shot Detection
+    // ----------------------------
+    boolean shot =
+        shotDetector.update(
+            allowFeed,
+            shooter.getTargetRPS(),
+            spindexer.isFeedingForward(),
+            loader.getCurrentAmps(),
+            shooter.getVelocityRPS(),
+            shooter.getStatorCurrentAmps());
+    if (shot) {
+      shooter.onShotDetected();
+      shotDetector.record(
+          currentShotType,
+          target == null ? Double.NaN : getTurretFieldPosition().getDistance(target),
+          commandedHoodDegrees,
+          drive.getFieldRelativeVelocity().getNorm(),
+          turret.getAngleErrorDegrees());
+    }
 
     logState(readyToFire, allowFeed);
   }
@@ -295,10 +329,25 @@ public class ShootingCoordinator extends SubsystemBase {
 
     Translation2d robotTranslation = drive.getPose().getTranslation();
 
-    Translation2d turretOffsetField = // new Translation2d().rotateBy(drive.getRotation());
-        Constants.Turret.turretOffset.div(1.5).toTranslation2d().rotateBy(drive.getRotation());
+    return robotTranslation.plus(getTurretOffsetField());
+  }
+
+  /** Turret offset from the robot center, rotated into the field frame. */
+  private Translation2d getTurretOffsetField() {
+    return Constants.Turret.turretOffset.div(1.5).toTranslation2d().rotateBy(drive.getRotation());
+  }
+
+  /** Field-relative turret velocity, including the tangential velocity from robot rotation. */
+  private Translation2d getTurretFieldVelocity() {
+    Translation2d robotVelocity = drive.getFieldRelativeVelocity();
+    double omega = drive.getChassisSpeeds().omegaRadiansPerSecond;
+
+    Translation2d turretOffsetField = getTurretOffsetField();
 
-    return robotTranslation.plus(turretOffsetField);
+    // v_turret = v_robot + omega x r
+    return new Translation2d(
+        robotVelocity.getX() - omega * turretOffsetField.getY(),
+        robotVelocity.getY() + omega * turretOffsetField.getX());
   }
 
   /* ===================== Logging ===================== */
@@ -8,14 +8,25 @@ import com.ctre.phoenix6.signals.NeutralModeValue;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import frc.robot.util.ConfigApplier;
+import frc.robot.util.FlightRecorder;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.SignalRegistry;
+import frc.robot.util.SignalRegistry.CachedSignal;
 import org.littletonrobotics.junction.Logger;
 import org.littletonrobotics.junction.networktables.LoggedNetworkNumber;
 
 public class Spindexer extends SubsystemBase {
+  private final LoopProfiler.Section profilerSection = LoopProfiler.section("Spindexer");
 
   private final boolean hardwareEnabled = Constants.Spindexer.HardwareEnabled;
 
   private TalonFX motor;
+
+  // Cached status signals, refreshed once per loop by SignalRegistry
+  private CachedSignal velocity;
+  private CachedSignal supplyCurrent;
+  private CachedSignal statorCurrent;
   private final VoltageOut voltageOut = new VoltageOut(0.0);
 
   /* ===================== Tunables ===================== */
@@ -81,17 +92,24 @@ public class Spindexer extends SubsystemBase {
     motor.getSupplyCurrent().setUpdateFrequency(100);
     motor.getStatorCurrent().setUpdateFrequency(100);
     motor.optimizeBusUtilization();
+
+    velocity = SignalRegistry.register(motor.getVelocity(false));
+    supplyCurrent = SignalRegistry.register(motor.getSupplyCurrent(false));
+    statorCurrent = SignalRegistry.register(motor.getStatorCurrent(false));
+
+    FlightRecorder.addSignal("Spindexer/StatorCurrent", motor.getStatorCurrent(false));
   }
 
   @Override
   public void periodic() {
+    profilerSection.enter();
 
     double now = Timer.getFPGATimestamp();
 
     // Live-update current limit
     double newLimit = supplyCurrentLimit.get();
     if (hardwareEnabled && Math.abs(newLimit - lastAppliedCurrentLimit) > 1e-6) {
-      applyCurrentLimit(newLimit);
+      requestCurrentLimit(newLimit);
       lastAppliedCurrentLimit = newLimit;
     }
 
@@ -176,6 +194,11 @@ public class Spindexer extends SubsystemBase {
     commandedPercent = percent;
   }
 
+  /** Returns whether the spindexer is feeding forward, rather than in an unjam reversal. */
+  public boolean isFeedingForward() {
+    return running && feedingActive && feedState == FeedState.FORWARD;
+  }
+
   private void applyPercent(double percent) {
     if (!hardwareEnabled) return;
 
@@ -190,24 +213,32 @@ public class Spindexer extends SubsystemBase {
     motor.getConfigurator().apply(limits);
   }
 
+  /** Applies a new current limit on the config worker so the loop doesn't wait on the CAN bus. */
+  private void requestCurrentLimit(double limit) {
+    CurrentLimitsConfigs limits =
+        new CurrentLimitsConfigs().withSupplyCurrentLimitEnable(true).withSupplyCurrentLimit(limit);
+
+    ConfigApplier.submit("Spindexer/CurrentLimits", () -> motor.getConfigurator().apply(limits));
+  }
+
   /* ===================== Logging ===================== */
 
   private void logTelemetry() {
 
     double velocityRPS = 0.0;
-    double supplyCurrent = 0.0;
-    double statorCurrent = 0.0;
+    double supplyAmps = 0.0;
+    double statorAmps = 0.0;
 
     if (hardwareEnabled) {
-      velocityRPS = motor.getVelocity().getValueAsDouble();
-      supplyCurrent = motor.getSupplyCurrent().getValueAsDouble();
-      statorCurrent = motor.getStatorCurrent().getValueAsDouble();
+      velocityRPS = velocity.getValue();
+      supplyAmps = supplyCurrent.getValue();
+      statorAmps = statorCurrent.getValue();
     }
 
     Logger.recordOutput("Spindexer/VelocityRPS", velocityRPS);
     Logger.recordOutput("Spindexer/VelocityRPM", velocityRPS * 60.0);
-    Logger.recordOutput("Spindexer/SupplyCurrent", supplyCurrent);
-    Logger.recordOutput("Spindexer/StatorCurrent", statorCurrent);
+    Logger.recordOutput("Spindexer/SupplyCurrent", supplyAmps);
+    Logger.recordOutput("Spindexer/StatorCurrent", statorAmps);
     Logger.recordOutput("Spindexer/CommandedPercent", commandedPercent);
     Logger.recordOutput("Spindexer/Running", running);
     Logger.recordOutput("Spindexer/HardwareEnabled", hardwareEnabled);
@@ -1,25 +1,66 @@
 package frc.robot.subsystems;
 
+import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.configs.CANcoderConfiguration;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
+import com.ctre.phoenix6.controls.MotionMagicVoltage;
 import com.ctre.phoenix6.controls.VoltageOut;
 import com.ctre.phoenix6.hardware.CANcoder;
 import com.ctre.phoenix6.hardware.TalonFX;
+import com.ctre.phoenix6.signals.InvertedValue;
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.SignalRegistry;
+import frc.robot.util.SignalRegistry.CachedSignal;
+import frc.robot.util.TimeSeriesBuffer;
 import org.littletonrobotics.junction.AutoLogOutput;
 import org.littletonrobotics.junction.Logger;
 
 public class Turret extends SubsystemBase {
+  private final LoopProfiler.Section profilerSection = LoopProfiler.section("Turret");
 
   private final boolean hardwareEnabled = Constants.Turret.HardwareEnabled;
 
   private TalonFX motor;
   private CANcoder encoder;
 
+  // Cached encoder position and velocity, refreshed once per loop by SignalRegistry
+  private CachedSignal encoderPosition;
+  private CachedSignal encoderVelocity;
+
   private final VoltageOut voltageOut = new VoltageOut(0.0);
+  private final MotionMagicVoltage motionMagic = new MotionMagicVoltage(0.0);
+  private final boolean useMotionMagic = Constants.Turret.UseMotionMagic;
+
+  // Chooses which limit to wait at when the target is out of range. Its motion limits come from
+  // whichever loop is driving the turret, so time-to-aim matches what the turret can do.
+  private final TurretPlanner planner =
+      new TurretPlanner(
+          Constants.Turret.TURRET_MIN_DEG,
+          Constants.Turret.TURRET_MAX_DEG,
+          useMotionMagic
+              ? Constants.Turret.MM_CRUISE_VELOCITY * 360.0
+              : Constants.Turret.RIO_MAX_VELOCITY_DEG_PER_SEC,
+          useMotionMagic
+              ? Constants.Turret.MM_ACCELERATION * 360.0
+              : Constants.Turret.RIO_MAX_ACCELERATION_DEG_PER_SEC2);
+
+  // Turret angle sampled faster than the main loop, so vision can look up where the turret was
+  // pointing when a frame was captured. Angles are stored unwrapped, in degrees.
+  private static final double ANGLE_HISTORY_FREQUENCY = 250.0;
+  private static final double ANGLE_HISTORY_SECONDS = 0.5;
+  private final TimeSeriesBuffer angleHistory =
+      new TimeSeriesBuffer((int) Math.ceil(ANGLE_HISTORY_FREQUENCY * ANGLE_HISTORY_SECONDS), 1);
+  private final double[] angleHistoryWrite = new double[1];
+  private final double[] angleHistoryRead = new double[1];
+  private StatusSignal<Angle> angleHistoryPosition; // Only used by the history notifier
+  private Notifier angleHistoryNotifier;
 
   /* ===================== Tunables ===================== */
 
@@ -52,12 +93,22 @@ public class Turret extends SubsystemBase {
       configureMotor();
       configureEncoder();
       setTurretEncoderToStart();
+
+      encoderPosition = SignalRegistry.register(encoder.getPosition(false));
+      encoderVelocity = SignalRegistry.register(encoder.getVelocity(false));
+
+      angleHistoryPosition = encoder.getPosition(false).clone();
+      angleHistoryPosition.setUpdateFrequency(ANGLE_HISTORY_FREQUENCY);
+      angleHistoryNotifier = new Notifier(this::sampleAngleHistory);
+      angleHistoryNotifier.setName("TurretAngleHistory");
+      angleHistoryNotifier.startPeriodic(1.0 / ANGLE_HISTORY_FREQUENCY);
     }
   }
 
   public void setTurretEncoderToStart() {
     encoder.setPosition(Constants.Turret.startPositionEncoderOffset); // rotations = 0 at boot
     targetAngleDeg = Constants.Turret.startingDegrees;
+    clearAngleHistory();
   }
 
   private void configureMotor() {
@@ -67,6 +118,32 @@ public class Turret extends SubsystemBase {
     config.CurrentLimits.SupplyCurrentLimitEnable = true;
     config.CurrentLimits.SupplyCurrentLimit = 25;
 
+    if (useMotionMagic) {
+      // Positive output raises the encoder angle, so the motor and CANcoder agree. The RIO loop
+      // handles the inversion itself instead (see periodic()).
+      config.MotorOutput.Inverted = InvertedValue.Clockwise_Positive;
+
+      // Fuse the CANcoder so the motor position is turret rotations
+      config.Feedback.FeedbackRemoteSensorID = Constants.Turret.Encoder;
+      config.Feedback.FeedbackSensorSource = Constants.Turret.FeedbackSource;
+      config.Feedback.RotorToSensorRatio = Constants.Turret.ROTOR_TO_SENSOR_RATIO;
+      config.Feedback.SensorToMechanismRatio = Constants.Turret.GEAR_RATIO;
+
+      config.Slot0.kP = Constants.Turret.MM_kP;
+      config.Slot0.kD = Constants.Turret.MM_kD;
+      config.Slot0.kS = Constants.Turret.MM_kS;
+      config.Slot0.kV = Constants.Turret.MM_kV;
+      config.MotionMagic.MotionMagicCruiseVelocity = Constants.Turret.MM_CRUISE_VELOCITY;
+      config.MotionMagic.MotionMagicAcceleration = Constants.Turret.MM_ACCELERATION;
+
+      config.SoftwareLimitSwitch.ForwardSoftLimitEnable = true;
+      config.SoftwareLimitSwitch.ForwardSoftLimitThreshold =
+          Constants.Turret.TURRET_MAX_DEG / 360.0;
+      config.SoftwareLimitSwitch.ReverseSoftLimitEnable = true;
+      config.SoftwareLimitSwitch.ReverseSoftLimitThreshold =
+          Constants.Turret.TURRET_MIN_DEG / 360.0;
+    }
+
     motor.getConfigurator().apply(config);
   }
 
@@ -81,6 +158,7 @@ public class Turret extends SubsystemBase {
   public void zeroTurret() {
     if (!hardwareEnabled) return;
     encoder.setPosition(0.0); // rotations = 0 at boot
+    clearAngleHistory();
   }
 
   /* ===================== Public Control ===================== */
@@ -113,10 +191,30 @@ public class Turret extends SubsystemBase {
     return Math.abs(current - target) < Constants.Turret.toleranceDeg; // toleranceDeg.get();
   }
 
+  /** Returns target minus current angle, in degrees. */
+  public double getAngleErrorDegrees() {
+    if (!hardwareEnabled) return 0.0;
+    return targetAngleDeg - getTurretAngleDegrees();
+  }
+
+  /**
+   * Predicts the time until the turret is within tolerance of its target, from the planner's
+   * trapezoid model. Returns infinity if the target is outside the turret's range, and zero in
+   * simulation, which has no turret physics to predict.
+   */
+  public double getTimeToAimSeconds() {
+    if (Constants.currentMode == Constants.Mode.SIM) return 0.0;
+    if (!hardwareEnabled) return Double.POSITIVE_INFINITY;
+    if (isAtSetpoint()) return 0.0;
+    if (planner.isParked()) return Double.POSITIVE_INFINITY;
+    return planner.getTimeToAimSeconds();
+  }
+
   /* ===================== Core Logic ===================== */
 
   @Override
   public void periodic() {
+    profilerSection.enter();
 
     double current = hardwareEnabled ? getTurretAngleDegrees() : 0.0;
 
@@ -128,7 +226,13 @@ public class Turret extends SubsystemBase {
     // predict where the target will be
     double predictedTarget = target + (robotOmegaDegPerSec * lookahead);
 
-    double delta = computeSafeDelta(current, predictedTarget);
+    // MotionMagic tracks with feedforward instead of the lookahead
+    double velocity =
+        hardwareEnabled ? encoderVelocity.getValue() * (360.0 / Constants.Turret.GEAR_RATIO) : 0.0;
+    double planned =
+        planner.plan(
+            current, velocity, useMotionMagic ? target : predictedTarget, robotOmegaDegPerSec);
+    double delta = planned - current;
 
     Logger.recordOutput("Turret/CurrentDeg", current);
     Logger.recordOutput("Turret/TargetDeg", target);
@@ -137,9 +241,17 @@ public class Turret extends SubsystemBase {
     Logger.recordOutput("Turret/HardwareEnabled", hardwareEnabled);
     Logger.recordOutput("Turret/RobotOmegaDegPerSec", robotOmegaDegPerSec);
     Logger.recordOutput("Turret/predictedTarget", predictedTarget);
+    Logger.recordOutput("Turret/PlannedDeg", planned);
+    Logger.recordOutput("Turret/ParkedAtLimit", planner.isParked());
+    Logger.recordOutput("Turret/TimeToAimSec", planner.getTimeToAimSeconds());
 
     if (!closedLoop) return;
 
+    if (useMotionMagic) {
+      runMotionMagic(planned, planner.isParked());
+      return;
+    }
+
     if (Math.abs(delta) < Constants.Turret.toleranceDeg /*toleranceDeg.get()*/) {
       if (hardwareEnabled) {
         setPercentOutput(0);
@@ -162,6 +274,24 @@ public class Turret extends SubsystemBase {
     Logger.recordOutput("Turret/Output", output);
   }
 
+  /**
+   * Runs the on-device MotionMagic profile to a planned (legal) setpoint. The turret has to turn at
+   * the robot's yaw rate to hold a field angle, so that rate is sent as feedforward every loop and
+   * the Talon tracks without waiting for error to build up.
+   */
+  private void runMotionMagic(double plannedDeg, boolean parked) {
+    // No feedforward while parked on a limit, it would only push into the soft limit
+    double feedforwardVolts =
+        parked ? 0.0 : Constants.Turret.MM_kV * (robotOmegaDegPerSec / 360.0);
+
+    if (hardwareEnabled) {
+      motor.setControl(
+          motionMagic.withPosition(plannedDeg / 360.0).withFeedForward(feedforwardVolts));
+    }
+
+    Logger.recordOutput("Turret/FeedforwardVolts", feedforwardVolts);
+  }
+
   private void setPercentOutput(double percent) {
 
     double desiredOut = percent * 12.0;
@@ -170,6 +300,10 @@ public class Turret extends SubsystemBase {
       desiredOut += Math.signum(percent) * Constants.Turret.kS; // kSVolts.get();
     }
 
+    if (useMotionMagic) {
+      desiredOut = -desiredOut; // The motor is inverted in config for MotionMagic
+    }
+
     voltageOut.Output = desiredOut;
     motor.setControl(voltageOut);
   }
@@ -217,46 +351,66 @@ public class Turret extends SubsystemBase {
 
   @AutoLogOutput
   public double getRawEncoderPosition() {
-    return encoder.getPosition().getValueAsDouble();
+    if (!hardwareEnabled) return 0.0;
+    return encoderPosition.getValue();
   }
 
   public double getTurretAngleDegrees() {
     if (!hardwareEnabled) return 0.0;
-    return normalizeToSigned(
-        encoder.getPosition().getValueAsDouble() * (360.0 / Constants.Turret.GEAR_RATIO));
+    return normalizeToSigned(encoderPosition.getValue() * (360.0 / Constants.Turret.GEAR_RATIO));
   }
 
   @AutoLogOutput
   public double getTurretAngleRad() {
     return Math.toRadians(getTurretAngleDegrees());
   }
-  /* ===================== Safety & Math ===================== */
 
-  private double normalizeToSigned(double degrees) {
-    double angle = degrees % 360.0;
-    if (angle >= 180) angle -= 360;
-    if (angle < -180) angle += 360;
-    return angle;
+  /**
+   * Returns the turret angle at a past timestamp, interpolated from the angle history. Use this for
+   * camera frames, which are captured well before the loop processes them. Falls back to the
+   * current angle if the history is empty.
+   */
+  public double getTurretAngleDegreesAt(double timestampSeconds) {
+    if (!hardwareEnabled) return 0.0;
+    synchronized (angleHistory) {
+      if (!angleHistory.sample(timestampSeconds, angleHistoryRead)) {
+        return getTurretAngleDegrees();
+      }
+      return normalizeToSigned(angleHistoryRead[0]);
+    }
   }
 
-  private double computeSafeDelta(double currentDeg, double targetDeg) {
-
-    double current = normalizeToSigned(currentDeg);
-    double target = normalizeToSigned(targetDeg);
-    // 176 compared to -176
+  public double getTurretAngleRadAt(double timestampSeconds) {
+    return Math.toRadians(getTurretAngleDegreesAt(timestampSeconds));
+  }
 
-    // double maxAllowed = 180 - Constants.Turret.FORBIDDEN_BUFFER_DEG;
-    //
-    target =
-        MathUtil.clamp(target, Constants.Turret.TURRET_MIN_DEG, Constants.Turret.TURRET_MAX_DEG);
-    // -174
+  /** Drops samples from before an encoder reset so lookups don't interpolate across it. */
+  private void clearAngleHistory() {
+    synchronized (angleHistory) {
+      angleHistory.clear();
+    }
+  }
 
-    double delta = target - current;
-    // -174 - 176
+  /** Records the latest encoder angle. Runs on the history notifier. */
+  private void sampleAngleHistory() {
+    angleHistoryPosition.refresh();
+
+    // Same timestamp approximation as the odometry thread, FPGA time minus CAN latency
+    double timestamp =
+        RobotController.getFPGATime() / 1e6 - angleHistoryPosition.getTimestamp().getLatency();
+    synchronized (angleHistory) {
+      angleHistoryWrite[0] =
+          angleHistoryPosition.getValueAsDouble() * (360.0 / Constants.Turret.GEAR_RATIO);
+      angleHistory.add(timestamp, angleHistoryWrite);
+    }
+  }
 
-    // if (delta > 180) delta -= 360;
-    // if (delta < -180) delta += 360;
+  /* ===================== Safety & Math ===================== */
 
-    return delta;
+  private double normalizeToSigned(double degrees) {
+    double angle = degrees % 360.0;
+    if (angle >= 180) angle -= 360;
+    if (angle < -180) angle += 360;
+    return angle;
   }
 }
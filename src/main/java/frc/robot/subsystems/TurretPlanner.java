@@ -0,0 +1,131 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Picks where the turret should go when the target angle may be outside its legal range.
+ *
+ * <p>The turret can't wrap, so any target in the dead zone between the max and min limits has to
+ * be parked at one of the two limits. Clamping picks whichever limit the normalized angle happens
+ * to be closer to, which swings the turret the long way across its range as the robot rotates
+ * through the wrap point. Instead, each limit is scored by the time until the turret would be aimed
+ * there: the longer of the time for the turret to drive to that limit (trapezoid profile from its
+ * current velocity) and the time for the moving target to come back into range at that limit. The
+ * turret pre-positions at the faster limit, with hysteresis so it doesn't flip between them.
+ *
+ * <p>Angles are robot-relative degrees. The target rate is how fast the target angle is moving,
+ * which for a fixed field target is the robot's yaw rate.
+ */
+public class TurretPlanner {
+  // A new side must beat the current one by this much to switch
+  private static final double SWITCH_MARGIN_SECONDS = 0.15;
+  // Below this the target is treated as stationary
+  private static final double MIN_TARGET_RATE_DEG_PER_SEC = 1.0;
+
+  private final double minDeg;
+  private final double maxDeg;
+  private final double maxVelocityDegPerSec;
+  private final double maxAccelerationDegPerSec2;
+
+  private boolean parked = false;
+  private boolean parkedAtMax = false;
+  private double timeToAimSeconds = 0.0;
+
+  public TurretPlanner(
+      double minDeg, double maxDeg, double maxVelocityDegPerSec, double maxAccelerationDegPerSec2) {
+    this.minDeg = minDeg;
+    this.maxDeg = maxDeg;
+    this.maxVelocityDegPerSec = maxVelocityDegPerSec;
+    this.maxAccelerationDegPerSec2 = maxAccelerationDegPerSec2;
+  }
+
+  /**
+   * Returns the legal setpoint for this loop.
+   *
+   * @param currentDeg Current turret angle.
+   * @param velocityDegPerSec Current turret velocity.
+   * @param targetDeg Desired angle, any range.
+   * @param targetRateDegPerSec How fast the desired angle is moving.
+   */
+  public double plan(
+      double currentDeg, double velocityDegPerSec, double targetDeg, double targetRateDegPerSec) {
+    double target = MathUtil.inputModulus(targetDeg, -180.0, 180.0);
+    if (target >= minDeg && target <= maxDeg) {
+      parked = false;
+      timeToAimSeconds = travelTime(currentDeg, velocityDegPerSec, target);
+      return target;
+    }
+
+    // Gaps from the target to each limit through the dead zone
+    double gapToMax = MathUtil.inputModulus(target - maxDeg, 0.0, 360.0);
+    double gapToMin = MathUtil.inputModulus(minDeg - target, 0.0, 360.0);
+
+    double maxTime;
+    double minTime;
+    if (Math.abs(targetRateDegPerSec) < MIN_TARGET_RATE_DEG_PER_SEC) {
+      // Stationary target: wait at the limit it's closest to, breaking ties by turret travel
+      double maxTravel = travelTime(currentDeg, velocityDegPerSec, maxDeg);
+      double minTravel = travelTime(currentDeg, velocityDegPerSec, minDeg);
+      maxTime = gapToMax / MIN_TARGET_RATE_DEG_PER_SEC + maxTravel;
+      minTime = gapToMin / MIN_TARGET_RATE_DEG_PER_SEC + minTravel;
+    } else {
+      // The target reaches the max limit moving down and the min limit moving up
+      double maxEntry =
+          targetRateDegPerSec < 0.0 ? gapToMax / -targetRateDegPerSec : Double.POSITIVE_INFINITY;
+      double minEntry =
+          targetRateDegPerSec > 0.0 ? gapToMin / targetRateDegPerSec : Double.POSITIVE_INFINITY;
+      maxTime = Math.max(travelTime(currentDeg, velocityDegPerSec, maxDeg), maxEntry);
+      minTime = Math.max(travelTime(currentDeg, velocityDegPerSec, minDeg), minEntry);
+    }
+
+    boolean chooseMax;
+    if (!parked) {
+      chooseMax = maxTime <= minTime;
+    } else if (parkedAtMax) {
+      chooseMax = !(minTime + SWITCH_MARGIN_SECONDS < maxTime);
+    } else {
+      chooseMax = maxTime + SWITCH_MARGIN_SECONDS < minTime;
+    }
+    parked = true;
+    parkedAtMax = chooseMax;
+    timeToAimSeconds = chooseMax ? maxTime : minTime;
+    return chooseMax ? maxDeg : minDeg;
+  }
+
+  /** Returns whether the last plan parked the turret at a limit. */
+  public boolean isParked() {
+    return parked;
+  }
+
+  /** Returns the estimated time until the turret is aimed, from the last plan. */
+  public double getTimeToAimSeconds() {
+    return timeToAimSeconds;
+  }
+
+  /** Returns the time to move to a position and stop there with a trapezoid profile. */
+  private double travelTime(double fromDeg, double velocityDegPerSec, double toDeg) {
+    double a = maxAccelerationDegPerSec2;
+    double vMax = maxVelocityDegPerSec;
+    double distance = Math.abs(toDeg - fromDeg);
+    double velocity = velocityDegPerSec * Math.signum(toDeg - fromDeg); // Toward the goal
+    double time = 0.0;
+
+    // Moving away: stop first, then cover the extra distance
+    if (velocity < 0.0) {
+      time += -velocity / a;
+      distance += velocity * velocity / (2.0 * a);
+      velocity = 0.0;
+    }
+    velocity = Math.min(velocity, vMax);
+
+    double accelDistance = (vMax * vMax - velocity * velocity) / (2.0 * a);
+    double decelDistance = vMax * vMax / (2.0 * a);
+    if (accelDistance + decelDistance <= distance) {
+      time += (vMax - velocity) / a + vMax / a + (distance - accelDistance - decelDistance) / vMax;
+    } else {
+      double peak = Math.sqrt(a * distance + velocity * velocity / 2.0);
+      time += Math.max(peak - velocity, 0.0) / a + Math.max(peak, velocity) / a;
+    }
+    return time;
+  }
+}
@@ -15,10 +15,14 @@ import com.pathplanner.lib.config.PIDConstants;
 import com.pathplanner.lib.config.RobotConfig;
 import com.pathplanner.lib.controllers.PPHolonomicDriveController;
 import com.pathplanner.lib.pathfinding.Pathfinding;
+import com.pathplanner.lib.util.DriveFeedforwards;
 import com.pathplanner.lib.util.PathPlannerLogging;
+import com.pathplanner.lib.util.swerve.SwerveSetpoint;
+import com.pathplanner.lib.util.swerve.SwerveSetpointGenerator;
 import edu.wpi.first.hal.FRCNetComm.tInstances;
 import edu.wpi.first.hal.FRCNetComm.tResourceType;
 import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.Matrix;
 import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
 import edu.wpi.first.math.geometry.Pose2d;
@@ -35,20 +39,29 @@ import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.wpilibj.Alert;
 import edu.wpi.first.wpilibj.Alert.AlertType;
 import edu.wpi.first.wpilibj.DriverStation;
-import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
 import frc.robot.Constants;
 import frc.robot.Constants.Mode;
+import frc.robot.FlipUtil;
 import frc.robot.generated.TunerConstants;
+import frc.robot.util.FlightRecorder;
 import frc.robot.util.LocalADStarAK;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.TimeSeriesBuffer;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import org.littletonrobotics.junction.AutoLog;
 import org.littletonrobotics.junction.AutoLogOutput;
 import org.littletonrobotics.junction.Logger;
 
 public class Drive extends SubsystemBase {
+  private final LoopProfiler.Section profilerSection = LoopProfiler.section("Drive");
+
   // TunerConstants doesn't include these constants, so they are declared locally
   static final double ODOMETRY_FREQUENCY = TunerConstants.kCANBus.isNetworkFD() ? 250.0 : 100.0;
   public static final double DRIVE_BASE_RADIUS =
@@ -78,14 +91,13 @@ public class Drive extends SubsystemBase {
               1),
           getModuleTranslations());
 
-  static final Lock odometryLock = new ReentrantLock();
   private final GyroIO gyroIO;
   private final GyroIOInputsAutoLogged gyroInputs = new GyroIOInputsAutoLogged();
   private final Module[] modules = new Module[4]; // FL, FR, BL, BR
   private final SysIdRoutine sysId;
   private final Alert gyroDisconnectedAlert =
       new Alert("Disconnected gyro, using kinematics as fallback.", AlertType.kError);
-  public boolean gyroConnected = true;
+  public volatile boolean gyroConnected = true;
 
   private SwerveDriveKinematics kinematics = new SwerveDriveKinematics(getModuleTranslations());
   private Rotation2d rawGyroRotation = Rotation2d.kZero;
@@ -99,6 +111,69 @@ public class Drive extends SubsystemBase {
   private SwerveDrivePoseEstimator poseEstimator =
       new SwerveDrivePoseEstimator(kinematics, rawGyroRotation, lastModulePositions, Pose2d.kZero);
 
+  /** Estimated pose after integrating one odometry sample. */
+  private static record PoseSnapshot(long sequence, double timestamp, Pose2d pose) {}
+
+  // On the real robot the odometry thread integrates each sample as it arrives. The estimator and
+  // everything it integrates from are guarded by estimatorLock; readers use the snapshots instead.
+  private final boolean integrateOnThread;
+  private final boolean gyroOnThread;
+  private final Lock estimatorLock = new ReentrantLock();
+  private final AtomicReference<PoseSnapshot> latestPose =
+      new AtomicReference<>(new PoseSnapshot(0, 0.0, Pose2d.kZero));
+  private final AtomicReferenceArray<PoseSnapshot> poseHistory =
+      new AtomicReferenceArray<>(OdometrySampleBuffer.CAPACITY);
+  private final SwerveModulePosition[] threadPositions = new SwerveModulePosition[4];
+  private long lastIntegratedSequence = 0;
+
+  // Pose seen by the main loop, fixed once per cycle in periodic()
+  private Pose2d loopPose = Pose2d.kZero;
+
+  /**
+   * Pose the main loop took from the odometry thread. Vision corrections land between thread
+   * samples at times replay can't reproduce, so replay uses this pose instead of its own.
+   */
+  @AutoLog
+  public static class OdometryInputs {
+    public boolean integratedOnThread = false;
+    public Pose2d loopPose = Pose2d.kZero;
+  }
+
+  private final OdometryInputsAutoLogged odometryInputs = new OdometryInputsAutoLogged();
+
+  // History for latency-compensated lookups, guarded by estimatorLock. Poses are stored per
+  // odometry sample as (x, y, continuous heading) and shifted along with vision corrections;
+  // field-relative velocities once per cycle as (vx, vy, omega).
+  private static final double HISTORY_SECONDS = 1.0;
+  private final TimeSeriesBuffer poseSamples =
+      new TimeSeriesBuffer((int) Math.ceil(HISTORY_SECONDS * ODOMETRY_FREQUENCY), 3);
+  private final TimeSeriesBuffer velocitySamples =
+      new TimeSeriesBuffer((int) Math.ceil(HISTORY_SECONDS * 50.0), 3);
+  private final double[] historyWrite = new double[3];
+  private final double[] historyRead = new double[3];
+  private double continuousHeading = 0.0;
+
+  // Primitive setpoint path, see runVelocity(double, double, double). Module locations are
+  // precomputed for inverse kinematics; setpoints and log objects are reused every call.
+  private static final double SETPOINT_DT = 0.02;
+  private final double[] moduleLocationX = new double[4];
+  private final double[] moduleLocationY = new double[4];
+  private final double maxModuleSpeed = TunerConstants.kSpeedAt12Volts.in(MetersPerSecond);
+  private final double[] setpointSpeeds = new double[4];
+  private final double[] setpointAngles = new double[4]; // Last heading held while stopped
+  private final SwerveModuleState[] setpointStates = new SwerveModuleState[4];
+  private final SwerveModuleState[] optimizedStates = new SwerveModuleState[4];
+  private final ChassisSpeeds setpointSpeedsLog = new ChassisSpeeds();
+
+  // Kinematically limited setpoints, see runLimitedVelocity()
+  private static final double MAX_STEER_VELOCITY_RAD_PER_SEC =
+      RotationsPerSecond.of(10.0).in(RadiansPerSecond);
+  private final SwerveSetpointGenerator setpointGenerator =
+      new SwerveSetpointGenerator(PP_CONFIG, MAX_STEER_VELOCITY_RAD_PER_SEC);
+  private final ChassisSpeeds limitedRequest = new ChassisSpeeds();
+  private SwerveSetpoint previousSetpoint = null; // Null when another path last drove the modules
+  private double lastLimitedSetpointTime = Double.NEGATIVE_INFINITY;
+
   public Drive(
       GyroIO gyroIO,
       ModuleIO flModuleIO,
@@ -110,13 +185,38 @@ public class Drive extends SubsystemBase {
     modules[1] = new Module(frModuleIO, 1, TunerConstants.FrontRight);
     modules[2] = new Module(blModuleIO, 2, TunerConstants.BackLeft);
     modules[3] = new Module(brModuleIO, 3, TunerConstants.BackRight);
+    Translation2d[] moduleTranslations = getModuleTranslations();
+    for (int i = 0; i < 4; i++) {
+      moduleLocationX[i] = moduleTranslations[i].getX();
+      moduleLocationY[i] = moduleTranslations[i].getY();
+      setpointStates[i] = new SwerveModuleState();
+      optimizedStates[i] = new SwerveModuleState();
+    }
 
     // Usage reporting for swerve template
     HAL.report(tResourceType.kResourceType_RobotDrive, tInstances.kRobotDriveSwerve_AdvantageKit);
 
+    // Integrate odometry on the thread when every module can be read there. Sim and replay have
+    // no thread, so they integrate the logged samples in periodic() instead.
+    boolean modulesOnThread = true;
+    for (var module : modules) {
+      modulesOnThread &= module.hasOdometryThreadSamples();
+    }
+    integrateOnThread = modulesOnThread && Constants.currentMode == Mode.REAL;
+    gyroOnThread = gyroIO.hasOdometryThreadSamples();
+    if (integrateOnThread) {
+      PhoenixOdometryThread.getInstance().addSampleListener(this::integrateThreadSample);
+    }
+
     // Start odometry thread
     PhoenixOdometryThread.getInstance().start();
 
+    // Latest pose is published by the odometry thread, so the recorder sees every sample
+    FlightRecorder.addChannel("Drive/PoseX", () -> latestPose.get().pose().getX());
+    FlightRecorder.addChannel("Drive/PoseY", () -> latestPose.get().pose().getY());
+    FlightRecorder.addChannel(
+        "Drive/HeadingRad", () -> latestPose.get().pose().getRotation().getRadians());
+
     // Configure AutoBuilder for PathPlanner
     AutoBuilder.configure(
         this::getPose,
@@ -126,7 +226,7 @@ public class Drive extends SubsystemBase {
         new PPHolonomicDriveController(
             new PIDConstants(5.0, 0.0, 0.0), new PIDConstants(5.0, 0.0, 0.0)),
         PP_CONFIG,
-        () -> DriverStation.getAlliance().orElse(Alliance.Blue) == Alliance.Red,
+        FlipUtil::shouldFlip,
         this);
     Pathfinding.setPathfinder(new LocalADStarAK());
     PathPlannerLogging.setLogActivePathCallback(
@@ -155,13 +255,14 @@ public class Drive extends SubsystemBase {
 
   @Override
   public void periodic() {
-    odometryLock.lock(); // Prevents odometry updates while reading data
+    profilerSection.enter();
+    // Fix the odometry samples read by the gyro and modules this cycle
+    PhoenixOdometryThread.getInstance().captureSnapshot();
     gyroIO.updateInputs(gyroInputs);
     Logger.processInputs("Drive/Gyro", gyroInputs);
     for (var module : modules) {
       module.periodic();
     }
-    odometryLock.unlock();
 
     // Stop moving when disabled
     if (DriverStation.isDisabled()) {
@@ -177,35 +278,67 @@ public class Drive extends SubsystemBase {
     }
 
     // Update odometry
-    double[] sampleTimestamps =
-        modules[0].getOdometryTimestamps(); // All signals are sampled together
-    int sampleCount = sampleTimestamps.length;
-    for (int i = 0; i < sampleCount; i++) {
-      // Read wheel positions and deltas from each module
-      // SwerveModulePosition[] modulePositions = new SwerveModulePosition[4];
-      // SwerveModulePosition[] moduleDeltas = new SwerveModulePosition[4];
-      for (int moduleIndex = 0; moduleIndex < 4; moduleIndex++) {
-        modulePositions[moduleIndex] = modules[moduleIndex].getOdometryPositions()[i];
-        moduleDeltas[moduleIndex] =
-            new SwerveModulePosition(
-                modulePositions[moduleIndex].distanceMeters
-                    - lastModulePositions[moduleIndex].distanceMeters,
-                modulePositions[moduleIndex].angle);
-        lastModulePositions[moduleIndex] = modulePositions[moduleIndex];
+    if (integrateOnThread) {
+      // Use the pose from the last sample in this cycle's snapshot, so the pose matches the
+      // samples logged above
+      long sequence = PhoenixOdometryThread.getInstance().getSnapshotSequence();
+      PoseSnapshot snapshot = poseHistory.get((int) (sequence % OdometrySampleBuffer.CAPACITY));
+      if (snapshot == null || snapshot.sequence() != sequence) {
+        snapshot = latestPose.get();
       }
-
-      // Update gyro angle
-      if (gyroInputs.connected) {
-        // Use the real gyro angle
-        rawGyroRotation = gyroInputs.odometryYawPositions[i];
-      } else {
-        // Use the angle delta from the kinematics and module deltas
-        Twist2d twist = kinematics.toTwist2d(moduleDeltas);
-        rawGyroRotation = rawGyroRotation.plus(new Rotation2d(twist.dtheta));
+      loopPose = snapshot.pose();
+      odometryInputs.integratedOnThread = true;
+      odometryInputs.loopPose = loopPose;
+      Logger.recordOutput("Odometry/SnapshotSequence", sequence);
+      Logger.recordOutput("Odometry/SnapshotUsedSequence", snapshot.sequence());
+    }
+    Logger.processInputs("Drive/Odometry", odometryInputs);
+
+    if (!integrateOnThread) {
+      double[] sampleTimestamps =
+          modules[0].getOdometryTimestamps(); // All signals are sampled together
+      int sampleCount = sampleTimestamps.length;
+      estimatorLock.lock();
+      try {
+        for (int i = 0; i < sampleCount; i++) {
+          // Read wheel positions from each module
+          for (int moduleIndex = 0; moduleIndex < 4; moduleIndex++) {
+            modulePositions[moduleIndex] = modules[moduleIndex].getOdometryPositions()[i];
+          }
+          integrateSample(
+              sampleTimestamps[i],
+              modulePositions,
+              gyroInputs.connected ? gyroInputs.odometryYawPositions[i] : null);
+        }
+
+        // Replaying a log from the robot: take the pose it used, vision corrections included.
+        // Resetting also clears the estimator's buffers, so replayed vision doesn't apply twice.
+        if (odometryInputs.integratedOnThread) {
+          Pose2d before = poseEstimator.getEstimatedPosition();
+          poseEstimator.resetPose(odometryInputs.loopPose);
+          correctHistory(
+              before,
+              odometryInputs.loopPose,
+              sampleCount > 0 ? sampleTimestamps[0] : Double.POSITIVE_INFINITY);
+        }
+        loopPose = poseEstimator.getEstimatedPosition();
+        latestPose.set(new PoseSnapshot(0, Timer.getFPGATimestamp(), loopPose));
+      } finally {
+        estimatorLock.unlock();
       }
+    }
 
-      // Apply update
-      poseEstimator.updateWithTime(sampleTimestamps[i], rawGyroRotation, modulePositions);
+    // Record field-relative velocity for latency-compensated lookups
+    ChassisSpeeds fieldVelocity =
+        ChassisSpeeds.fromRobotRelativeSpeeds(getChassisSpeeds(), loopPose.getRotation());
+    estimatorLock.lock();
+    try {
+      historyWrite[0] = fieldVelocity.vxMetersPerSecond;
+      historyWrite[1] = fieldVelocity.vyMetersPerSecond;
+      historyWrite[2] = fieldVelocity.omegaRadiansPerSecond;
+      velocitySamples.add(Timer.getFPGATimestamp(), historyWrite);
+    } finally {
+      estimatorLock.unlock();
     }
 
     // Update gyro alert
@@ -213,32 +346,211 @@ public class Drive extends SubsystemBase {
     gyroConnected = gyroInputs.connected;
   }
 
+  /** Integrates one sample published by the odometry thread. Runs on the odometry thread. */
+  private void integrateThreadSample(long sequence) {
+    double timestamp = PhoenixOdometryThread.getInstance().getTimestampBuffer().get(sequence);
+    estimatorLock.lock();
+    try {
+      for (int moduleIndex = 0; moduleIndex < 4; moduleIndex++) {
+        threadPositions[moduleIndex] = modules[moduleIndex].getOdometryThreadPosition(sequence);
+      }
+      integrateSample(
+          timestamp,
+          threadPositions,
+          gyroOnThread && gyroConnected
+              ? new Rotation2d(gyroIO.getOdometryYawRad(sequence))
+              : null);
+
+      PoseSnapshot snapshot =
+          new PoseSnapshot(sequence, timestamp, poseEstimator.getEstimatedPosition());
+      poseHistory.set((int) (sequence % OdometrySampleBuffer.CAPACITY), snapshot);
+      latestPose.set(snapshot);
+      lastIntegratedSequence = sequence;
+    } finally {
+      estimatorLock.unlock();
+    }
+  }
+
+  /**
+   * Applies one odometry sample to the pose estimator. Must hold estimatorLock.
+   *
+   * @param gyroRotation Sampled gyro yaw, or null to fall back to the module deltas.
+   */
+  private void integrateSample(
+      double timestamp, SwerveModulePosition[] positions, Rotation2d gyroRotation) {
+    for (int i = 0; i < 4; i++) {
+      moduleDeltas[i] =
+          new SwerveModulePosition(
+              positions[i].distanceMeters - lastModulePositions[i].distanceMeters,
+              positions[i].angle);
+      lastModulePositions[i] = positions[i];
+    }
+
+    // Update gyro angle
+    if (gyroRotation != null) {
+      // Use the real gyro angle
+      rawGyroRotation = gyroRotation;
+    } else {
+      // Use the angle delta from the kinematics and module deltas
+      Twist2d twist = kinematics.toTwist2d(moduleDeltas);
+      rawGyroRotation = rawGyroRotation.plus(new Rotation2d(twist.dtheta));
+    }
+
+    // Apply update
+    Pose2d pose = poseEstimator.updateWithTime(timestamp, rawGyroRotation, positions);
+
+    // Record history, unwrapping the heading so it interpolates across +/-pi
+    double heading = pose.getRotation().getRadians();
+    continuousHeading =
+        poseSamples.size() == 0
+            ? heading
+            : continuousHeading + MathUtil.angleModulus(heading - continuousHeading);
+    historyWrite[0] = pose.getX();
+    historyWrite[1] = pose.getY();
+    historyWrite[2] = continuousHeading;
+    poseSamples.add(timestamp, historyWrite);
+  }
+
   /**
    * Runs the drive at the desired velocity.
    *
    * @param speeds Speeds in meters/sec
    */
   public void runVelocity(ChassisSpeeds speeds) {
-    // Calculate module setpoints
-    ChassisSpeeds discreteSpeeds = ChassisSpeeds.discretize(speeds, 0.02);
-    SwerveModuleState[] setpointStates = kinematics.toSwerveModuleStates(discreteSpeeds);
-    SwerveDriveKinematics.desaturateWheelSpeeds(setpointStates, TunerConstants.kSpeedAt12Volts);
+    runVelocity(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond);
+  }
+
+  /**
+   * Runs the drive at the desired field-relative velocity.
+   *
+   * @param robotHeadingRad Heading to convert from, already flipped for the alliance if needed
+   */
+  public void runFieldRelativeVelocity(
+      double vxMetersPerSec, double vyMetersPerSec, double omegaRadPerSec, double robotHeadingRad) {
+    double cos = Math.cos(robotHeadingRad);
+    double sin = Math.sin(robotHeadingRad);
+    runVelocity(
+        vxMetersPerSec * cos + vyMetersPerSec * sin,
+        -vxMetersPerSec * sin + vyMetersPerSec * cos,
+        omegaRadPerSec);
+  }
+
+  /**
+   * Runs the drive at the desired robot-relative velocity. Same math as discretizing the speeds,
+   * running them through {@link SwerveDriveKinematics} and desaturating, on reused primitive
+   * arrays.
+   */
+  public void runVelocity(double vxMetersPerSec, double vyMetersPerSec, double omegaRadPerSec) {
+    // Discretize: find the constant-curvature twist that reaches the pose the speeds would reach
+    // in one loop if applied as a straight line (same as ChassisSpeeds.discretize)
+    double dtheta = omegaRadPerSec * SETPOINT_DT;
+    double halfDtheta = dtheta / 2.0;
+    double cosMinusOne = Math.cos(dtheta) - 1.0;
+    double halfThetaByTanOfHalfDtheta =
+        Math.abs(cosMinusOne) < 1e-9
+            ? 1.0 - dtheta * dtheta / 12.0
+            : -(halfDtheta * Math.sin(dtheta)) / cosMinusOne;
+    double vx = vxMetersPerSec * halfThetaByTanOfHalfDtheta + vyMetersPerSec * halfDtheta;
+    double vy = -vxMetersPerSec * halfDtheta + vyMetersPerSec * halfThetaByTanOfHalfDtheta;
+    double omega = omegaRadPerSec;
+
+    // Inverse kinematics, holding the last headings when stopped
+    boolean stopped = vx == 0.0 && vy == 0.0 && omega == 0.0;
+    double maxSpeed = 0.0;
+    for (int i = 0; i < 4; i++) {
+      if (stopped) {
+        setpointSpeeds[i] = 0.0;
+        continue;
+      }
+      double moduleVx = vx - omega * moduleLocationY[i];
+      double moduleVy = vy + omega * moduleLocationX[i];
+      setpointSpeeds[i] = Math.hypot(moduleVx, moduleVy);
+      if (setpointSpeeds[i] > 1e-6) {
+        setpointAngles[i] = Math.atan2(moduleVy, moduleVx);
+      }
+      maxSpeed = Math.max(maxSpeed, setpointSpeeds[i]);
+    }
+
+    // Desaturate
+    if (maxSpeed > maxModuleSpeed) {
+      double scale = maxModuleSpeed / maxSpeed;
+      for (int i = 0; i < 4; i++) {
+        setpointSpeeds[i] *= scale;
+      }
+    }
 
+    previousSetpoint = null; // The limited path must restart from the measured state
+    applySetpoints(vx, vy, omega);
+  }
+
+  /**
+   * Runs the drive toward the desired robot-relative velocity, limited to what the modules can
+   * actually reach this loop. The generator uses the PathPlanner robot config (mass, MOI, motor
+   * torque, slip current and wheel friction) and {@link #MAX_STEER_VELOCITY_RAD_PER_SEC}, so the
+   * setpoints accelerate as hard as traction allows without slipping.
+   */
+  public void runLimitedVelocity(
+      double vxMetersPerSec, double vyMetersPerSec, double omegaRadPerSec) {
+    // Restart from the measured state if another path drove the modules or nothing has for a while
+    double now = Timer.getFPGATimestamp();
+    if (previousSetpoint == null || now - lastLimitedSetpointTime > SETPOINT_DT * 2.5) {
+      previousSetpoint =
+          new SwerveSetpoint(
+              getChassisSpeeds(), getModuleStates(), DriveFeedforwards.zeros(modules.length));
+    }
+    lastLimitedSetpointTime = now;
+
+    limitedRequest.vxMetersPerSecond = vxMetersPerSec;
+    limitedRequest.vyMetersPerSecond = vyMetersPerSec;
+    limitedRequest.omegaRadiansPerSecond = omegaRadPerSec;
+    previousSetpoint =
+        setpointGenerator.generateSetpoint(previousSetpoint, limitedRequest, SETPOINT_DT);
+    SwerveModuleState[] states = previousSetpoint.moduleStates();
+    for (int i = 0; i < 4; i++) {
+      setpointSpeeds[i] = states[i].speedMetersPerSecond;
+      setpointAngles[i] = states[i].angle.getRadians();
+    }
+    ChassisSpeeds speeds = previousSetpoint.robotRelativeSpeeds();
+    applySetpoints(
+        speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond);
+  }
+
+  /** Field-relative version of {@link #runLimitedVelocity(double, double, double)}. */
+  public void runLimitedFieldRelativeVelocity(
+      double vxMetersPerSec, double vyMetersPerSec, double omegaRadPerSec, double robotHeadingRad) {
+    double cos = Math.cos(robotHeadingRad);
+    double sin = Math.sin(robotHeadingRad);
+    runLimitedVelocity(
+        vxMetersPerSec * cos + vyMetersPerSec * sin,
+        -vxMetersPerSec * sin + vyMetersPerSec * cos,
+        omegaRadPerSec);
+  }
+
+  /** Logs the setpoints in setpointSpeeds and setpointAngles and sends them to the modules. */
+  private void applySetpoints(double vx, double vy, double omega) {
     // Log unoptimized setpoints and setpoint speeds
+    for (int i = 0; i < 4; i++) {
+      setpointStates[i].speedMetersPerSecond = setpointSpeeds[i];
+      if (setpointStates[i].angle.getRadians() != setpointAngles[i]) {
+        setpointStates[i].angle = new Rotation2d(setpointAngles[i]);
+      }
+    }
+    setpointSpeedsLog.vxMetersPerSecond = vx;
+    setpointSpeedsLog.vyMetersPerSecond = vy;
+    setpointSpeedsLog.omegaRadiansPerSecond = omega;
     Logger.recordOutput("SwerveStates/Setpoints", setpointStates);
-    Logger.recordOutput("SwerveChassisSpeeds/Setpoints", discreteSpeeds);
+    Logger.recordOutput("SwerveChassisSpeeds/Setpoints", setpointSpeedsLog);
 
-    // Send setpoints to modules
+    // Send setpoints to modules, then log the optimized setpoints they applied
     for (int i = 0; i < 4; i++) {
-      modules[i].runSetpoint(setpointStates[i]);
+      modules[i].runSetpoint(setpointSpeeds[i], setpointAngles[i], optimizedStates[i]);
     }
-
-    // Log optimized setpoints (runSetpoint mutates each state)
-    Logger.recordOutput("SwerveStates/SetpointsOptimized", setpointStates);
+    Logger.recordOutput("SwerveStates/SetpointsOptimized", optimizedStates);
   }
 
   /** Runs the drive in a straight line with the specified drive output. */
   public void runCharacterization(double output) {
+    previousSetpoint = null;
     for (int i = 0; i < 4; i++) {
       modules[i].runCharacterization(output);
     }
@@ -246,7 +558,7 @@ public class Drive extends SubsystemBase {
 
   /** Stops the drive. */
   public void stop() {
-    runVelocity(new ChassisSpeeds());
+    runVelocity(0.0, 0.0, 0.0);
   }
 
   /**
@@ -257,6 +569,7 @@ public class Drive extends SubsystemBase {
     Rotation2d[] headings = new Rotation2d[4];
     for (int i = 0; i < 4; i++) {
       headings[i] = getModuleTranslations()[i].getAngle();
+      setpointAngles[i] = headings[i].getRadians();
     }
     kinematics.resetHeadings(headings);
     stop();
@@ -284,15 +597,6 @@ public class Drive extends SubsystemBase {
     return states;
   }
 
-  /** Returns the module positions (turn angles and drive positions) for all of the modules. */
-  private SwerveModulePosition[] getModulePositions() {
-    SwerveModulePosition[] states = new SwerveModulePosition[4];
-    for (int i = 0; i < 4; i++) {
-      states[i] = modules[i].getPosition();
-    }
-    return states;
-  }
-
   /** Returns the measured chassis speeds of the robot. */
   @AutoLogOutput(key = "SwerveChassisSpeeds/Measured")
   public ChassisSpeeds getChassisSpeeds() {
@@ -329,10 +633,73 @@ public class Drive extends SubsystemBase {
     return output;
   }
 
-  /** Returns the current odometry pose. */
+  /**
+   * Returns the odometry pose for this cycle. Fixed when periodic() runs, so every subsystem sees
+   * the same pose and replay reproduces it.
+   */
   @AutoLogOutput(key = "Odometry/Robot")
   public Pose2d getPose() {
-    return poseEstimator.getEstimatedPosition();
+    return loopPose;
+  }
+
+  /**
+   * Returns the estimated pose at a past timestamp, interpolated between odometry samples. Use this
+   * when combining the pose with a measurement captured earlier (vision frames, sensor readings).
+   * Falls back to {@link #getPose()} if no history is stored yet.
+   */
+  public Pose2d getPoseAt(double timestampSeconds) {
+    estimatorLock.lock();
+    try {
+      if (!poseSamples.sample(timestampSeconds, historyRead)) return loopPose;
+      return new Pose2d(historyRead[0], historyRead[1], new Rotation2d(historyRead[2]));
+    } finally {
+      estimatorLock.unlock();
+    }
+  }
+
+  /**
+   * Allocation-free form of {@link #getPoseAt(double)}. Safe to call from any thread.
+   *
+   * @param out Receives x and y in meters and the heading in radians. The heading is unwrapped,
+   *     so it may be outside +/-pi.
+   * @return False if no history is stored yet, leaving out unchanged.
+   */
+  public boolean samplePoseAt(double timestampSeconds, double[] out) {
+    estimatorLock.lock();
+    try {
+      return poseSamples.sample(timestampSeconds, out);
+    } finally {
+      estimatorLock.unlock();
+    }
+  }
+
+  /**
+   * Returns the field-relative velocity at a past timestamp, interpolated between cycles. Returns
+   * zero if no history is stored yet.
+   */
+  public ChassisSpeeds getVelocityAt(double timestampSeconds) {
+    estimatorLock.lock();
+    try {
+      if (!velocitySamples.sample(timestampSeconds, historyRead)) return new ChassisSpeeds();
+      return new ChassisSpeeds(historyRead[0], historyRead[1], historyRead[2]);
+    } finally {
+      estimatorLock.unlock();
+    }
+  }
+
+  /**
+   * Allocation-free form of {@link #getVelocityAt(double)}. Safe to call from any thread.
+   *
+   * @param out Receives vx and vy in meters/sec and omega in radians/sec, field-relative.
+   * @return False if no history is stored yet, leaving out unchanged.
+   */
+  public boolean sampleVelocityAt(double timestampSeconds, double[] out) {
+    estimatorLock.lock();
+    try {
+      return velocitySamples.sample(timestampSeconds, out);
+    } finally {
+      estimatorLock.unlock();
+    }
   }
 
   /** Returns the current odometry rotation. */
@@ -342,7 +709,20 @@ public class Drive extends SubsystemBase {
 
   /** Resets the current odometry pose. */
   public void setPose(Pose2d pose) {
-    poseEstimator.resetPosition(rawGyroRotation, getModulePositions(), pose);
+    estimatorLock.lock();
+    try {
+      poseEstimator.resetPosition(rawGyroRotation, lastModulePositions, pose);
+      poseSamples.clear(); // Don't interpolate across the reset
+
+      // Replace the last snapshot so the reset is visible before the next sample arrives
+      PoseSnapshot snapshot =
+          new PoseSnapshot(lastIntegratedSequence, Timer.getFPGATimestamp(), pose);
+      poseHistory.set((int) (lastIntegratedSequence % OdometrySampleBuffer.CAPACITY), snapshot);
+      latestPose.set(snapshot);
+      loopPose = pose;
+    } finally {
+      estimatorLock.unlock();
+    }
   }
 
   /** Adds a new timestamped vision measurement. */
@@ -350,8 +730,41 @@ public class Drive extends SubsystemBase {
       Pose2d visionRobotPoseMeters,
       double timestampSeconds,
       Matrix<N3, N1> visionMeasurementStdDevs) {
-    poseEstimator.addVisionMeasurement(
-        visionRobotPoseMeters, timestampSeconds, visionMeasurementStdDevs);
+    estimatorLock.lock();
+    try {
+      Pose2d before = poseEstimator.getEstimatedPosition();
+      poseEstimator.addVisionMeasurement(
+          visionRobotPoseMeters, timestampSeconds, visionMeasurementStdDevs);
+      correctHistory(before, poseEstimator.getEstimatedPosition(), timestampSeconds);
+    } finally {
+      estimatorLock.unlock();
+    }
+  }
+
+  /**
+   * Moves the stored samples from a correction's timestamp onward by the rigid transform it applied
+   * to the estimate, so lookups agree with the corrected pose. The estimator replays odometry from
+   * that timestamp, so every later pose moves by the same transform as the latest one; earlier
+   * samples are left alone. Must hold estimatorLock.
+   */
+  private void correctHistory(Pose2d before, Pose2d after, double sinceTimestampSeconds) {
+    double dtheta = after.getRotation().minus(before.getRotation()).getRadians();
+    double dx = after.getX() - before.getX();
+    double dy = after.getY() - before.getY();
+    if (dx == 0.0 && dy == 0.0 && dtheta == 0.0) return;
+
+    double cos = Math.cos(dtheta);
+    double sin = Math.sin(dtheta);
+    for (int i = poseSamples.size() - 1; i >= 0; i--) {
+      if (poseSamples.get(i, historyWrite) < sinceTimestampSeconds) break;
+      double rx = historyWrite[0] - before.getX();
+      double ry = historyWrite[1] - before.getY();
+      historyWrite[0] = after.getX() + rx * cos - ry * sin;
+      historyWrite[1] = after.getY() + rx * sin + ry * cos;
+      historyWrite[2] += dtheta;
+      poseSamples.set(i, historyWrite);
+    }
+    continuousHeading += dtheta;
   }
 
   /** Returns the maximum linear speed in meters per sec. */
@@ -21,4 +21,14 @@ public interface GyroIO {
   }
 
   public default void updateInputs(GyroIOInputs inputs) {}
+
+  /** Returns whether odometry samples can be read directly on the odometry thread. */
+  public default boolean hasOdometryThreadSamples() {
+    return false;
+  }
+
+  /** Returns the yaw of an odometry sample. Called from the odometry thread. */
+  public default double getOdometryYawRad(long sequence) {
+    return 0.0;
+  }
 }
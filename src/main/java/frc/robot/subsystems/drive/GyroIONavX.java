@@ -11,17 +11,18 @@ import com.studica.frc.AHRS;
 import com.studica.frc.AHRS.NavXComType;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.util.Units;
-import java.util.Queue;
 
 /** IO implementation for NavX. */
 public class GyroIONavX implements GyroIO {
   private final AHRS navX = new AHRS(NavXComType.kMXP_SPI, (byte) Drive.ODOMETRY_FREQUENCY);
-  private final Queue<Double> yawPositionQueue;
-  private final Queue<Double> yawTimestampQueue;
+  private final OdometrySampleBuffer yawPositionBuffer;
+  private final OdometrySampleBuffer yawTimestampBuffer;
+  private final PhoenixOdometryThread.SampleCursor odometryCursor;
 
   public GyroIONavX() {
-    yawTimestampQueue = PhoenixOdometryThread.getInstance().makeTimestampQueue();
-    yawPositionQueue = PhoenixOdometryThread.getInstance().registerSignal(navX::getYaw);
+    yawTimestampBuffer = PhoenixOdometryThread.getInstance().getTimestampBuffer();
+    yawPositionBuffer = PhoenixOdometryThread.getInstance().registerSignal(navX::getYaw);
+    odometryCursor = PhoenixOdometryThread.getInstance().makeCursor();
   }
 
   @Override
@@ -30,13 +31,23 @@ public class GyroIONavX implements GyroIO {
     inputs.yawPosition = Rotation2d.fromDegrees(-navX.getYaw());
     inputs.yawVelocityRadPerSec = Units.degreesToRadians(-navX.getRawGyroZ());
 
-    inputs.odometryYawTimestamps =
-        yawTimestampQueue.stream().mapToDouble((Double value) -> value).toArray();
-    inputs.odometryYawPositions =
-        yawPositionQueue.stream()
-            .map((Double value) -> Rotation2d.fromDegrees(-value))
-            .toArray(Rotation2d[]::new);
-    yawTimestampQueue.clear();
-    yawPositionQueue.clear();
+    int sampleCount = odometryCursor.advance();
+    inputs.odometryYawTimestamps = new double[sampleCount];
+    inputs.odometryYawPositions = new Rotation2d[sampleCount];
+    for (int i = 0; i < sampleCount; i++) {
+      long sequence = odometryCursor.getSequence(i);
+      inputs.odometryYawTimestamps[i] = yawTimestampBuffer.get(sequence);
+      inputs.odometryYawPositions[i] = Rotation2d.fromDegrees(-yawPositionBuffer.get(sequence));
+    }
+  }
+
+  @Override
+  public boolean hasOdometryThreadSamples() {
+    return true;
+  }
+
+  @Override
+  public double getOdometryYawRad(long sequence) {
+    return Units.degreesToRadians(-yawPositionBuffer.get(sequence));
   }
 }
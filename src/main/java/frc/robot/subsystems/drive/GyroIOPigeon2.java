@@ -17,15 +17,15 @@ import edu.wpi.first.math.util.Units;
 import edu.wpi.first.units.measure.Angle;
 import edu.wpi.first.units.measure.AngularVelocity;
 import frc.robot.generated.TunerConstants;
-import java.util.Queue;
 
 /** IO implementation for Pigeon 2. */
 public class GyroIOPigeon2 implements GyroIO {
   private final Pigeon2 pigeon =
       new Pigeon2(TunerConstants.DrivetrainConstants.Pigeon2Id, TunerConstants.kCANBus);
   private final StatusSignal<Angle> yaw = pigeon.getYaw();
-  private final Queue<Double> yawPositionQueue;
-  private final Queue<Double> yawTimestampQueue;
+  private final OdometrySampleBuffer yawPositionBuffer;
+  private final OdometrySampleBuffer yawTimestampBuffer;
+  private final PhoenixOdometryThread.SampleCursor odometryCursor;
   private final StatusSignal<AngularVelocity> yawVelocity = pigeon.getAngularVelocityZWorld();
 
   public GyroIOPigeon2() {
@@ -39,8 +39,9 @@ public class GyroIOPigeon2 implements GyroIO {
     yaw.setUpdateFrequency(Drive.ODOMETRY_FREQUENCY);
     yawVelocity.setUpdateFrequency(50.0);
     pigeon.optimizeBusUtilization();
-    yawTimestampQueue = PhoenixOdometryThread.getInstance().makeTimestampQueue();
-    yawPositionQueue = PhoenixOdometryThread.getInstance().registerSignal(yaw.clone());
+    yawTimestampBuffer = PhoenixOdometryThread.getInstance().getTimestampBuffer();
+    yawPositionBuffer = PhoenixOdometryThread.getInstance().registerSignal(yaw.clone());
+    odometryCursor = PhoenixOdometryThread.getInstance().makeCursor();
   }
 
   @Override
@@ -49,13 +50,23 @@ public class GyroIOPigeon2 implements GyroIO {
     inputs.yawPosition = Rotation2d.fromDegrees(yaw.getValueAsDouble());
     inputs.yawVelocityRadPerSec = Units.degreesToRadians(yawVelocity.getValueAsDouble());
 
-    inputs.odometryYawTimestamps =
-        yawTimestampQueue.stream().mapToDouble((Double value) -> value).toArray();
-    inputs.odometryYawPositions =
-        yawPositionQueue.stream()
-            .map((Double value) -> Rotation2d.fromDegrees(value))
-            .toArray(Rotation2d[]::new);
-    yawTimestampQueue.clear();
-    yawPositionQueue.clear();
+    int sampleCount = odometryCursor.advance();
+    inputs.odometryYawTimestamps = new double[sampleCount];
+    inputs.odometryYawPositions = new Rotation2d[sampleCount];
+    for (int i = 0; i < sampleCount; i++) {
+      long sequence = odometryCursor.getSequence(i);
+      inputs.odometryYawTimestamps[i] = yawTimestampBuffer.get(sequence);
+      inputs.odometryYawPositions[i] = Rotation2d.fromDegrees(yawPositionBuffer.get(sequence));
+    }
+  }
+
+  @Override
+  public boolean hasOdometryThreadSamples() {
+    return true;
+  }
+
+  @Override
+  public double getOdometryYawRad(long sequence) {
+    return Units.degreesToRadians(yawPositionBuffer.get(sequence));
   }
 }
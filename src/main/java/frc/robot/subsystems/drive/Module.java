@@ -10,18 +10,21 @@ package frc.robot.subsystems.drive;
 import com.ctre.phoenix6.configs.CANcoderConfiguration;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
 import com.ctre.phoenix6.swerve.SwerveModuleConstants;
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.Alert;
 import edu.wpi.first.wpilibj.Alert.AlertType;
-import org.littletonrobotics.junction.Logger;
+import frc.robot.util.LogKeys;
+import frc.robot.util.LogKeys.Key;
 
 public class Module {
   private final ModuleIO io;
   private final ModuleIOInputsAutoLogged inputs = new ModuleIOInputsAutoLogged();
   private final int index;
+  private final Key inputsKey;
   private final SwerveModuleConstants<
           TalonFXConfiguration, TalonFXConfiguration, CANcoderConfiguration>
       constants;
@@ -39,6 +42,7 @@ public class Module {
     this.io = io;
     this.index = index;
     this.constants = constants;
+    inputsKey = LogKeys.of("Drive/Module" + Integer.toString(index));
     driveDisconnectedAlert =
         new Alert(
             "Disconnected drive motor on module " + Integer.toString(index) + ".",
@@ -54,7 +58,7 @@ public class Module {
 
   public void periodic() {
     io.updateInputs(inputs);
-    Logger.processInputs("Drive/Module" + Integer.toString(index), inputs);
+    LogKeys.processInputs(inputsKey, inputs);
 
     // Calculate positions for odometry
     int sampleCount = inputs.odometryTimestamps.length; // All signals are sampled together
@@ -82,6 +86,32 @@ public class Module {
     io.setTurnPosition(state.angle);
   }
 
+  /**
+   * Primitive version of {@link #runSetpoint(SwerveModuleState)}, without allocating a state.
+   *
+   * @param applied Receives the optimized, cosine-scaled setpoint for logging.
+   */
+  public void runSetpoint(double speedMetersPerSec, double angleRad, SwerveModuleState applied) {
+    // Optimize velocity setpoint, flipping the wheel if it's more than 90 degrees away
+    double currentRad = inputs.turnPosition.getRadians();
+    double errorRad = MathUtil.angleModulus(angleRad - currentRad);
+    if (Math.abs(errorRad) > Math.PI / 2.0) {
+      speedMetersPerSec = -speedMetersPerSec;
+      angleRad = MathUtil.angleModulus(angleRad + Math.PI);
+      errorRad = MathUtil.angleModulus(angleRad - currentRad);
+    }
+    speedMetersPerSec *= Math.cos(errorRad);
+
+    // Apply setpoints
+    io.setDriveVelocity(speedMetersPerSec / constants.WheelRadius);
+    io.setTurnPositionRad(angleRad);
+
+    applied.speedMetersPerSecond = speedMetersPerSec;
+    if (applied.angle.getRadians() != angleRad) {
+      applied.angle = new Rotation2d(angleRad);
+    }
+  }
+
   /** Runs the module with the specified output while controlling to zero degrees. */
   public void runCharacterization(double output) {
     io.setDriveOpenLoop(output);
@@ -124,6 +154,18 @@ public class Module {
     return odometryPositions;
   }
 
+  /** Returns whether odometry samples can be read directly on the odometry thread. */
+  public boolean hasOdometryThreadSamples() {
+    return io.hasOdometryThreadSamples();
+  }
+
+  /** Returns the module position of an odometry sample. Called from the odometry thread. */
+  public SwerveModulePosition getOdometryThreadPosition(long sequence) {
+    return new SwerveModulePosition(
+        io.getOdometryDrivePositionRad(sequence) * constants.WheelRadius,
+        new Rotation2d(io.getOdometryTurnPositionRad(sequence)));
+  }
+
   /** Returns the timestamps of the samples received this cycle. */
   public double[] getOdometryTimestamps() {
     return inputs.odometryTimestamps;
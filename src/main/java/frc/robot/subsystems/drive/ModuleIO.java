@@ -46,4 +46,24 @@ public interface ModuleIO {
 
   /** Run the turn motor to the specified rotation. */
   public default void setTurnPosition(Rotation2d rotation) {}
+
+  /** Run the turn motor to the specified position, without allocating a rotation. */
+  public default void setTurnPositionRad(double positionRad) {
+    setTurnPosition(new Rotation2d(positionRad));
+  }
+
+  /** Returns whether odometry samples can be read directly on the odometry thread. */
+  public default boolean hasOdometryThreadSamples() {
+    return false;
+  }
+
+  /** Returns the drive position of an odometry sample. Called from the odometry thread. */
+  public default double getOdometryDrivePositionRad(long sequence) {
+    return 0.0;
+  }
+
+  /** Returns the turn position of an odometry sample. Called from the odometry thread. */
+  public default double getOdometryTurnPositionRad(long sequence) {
+    return 0.0;
+  }
 }
@@ -135,4 +135,10 @@ public class ModuleIOSim implements ModuleIO {
     turnClosedLoop = true;
     turnController.setSetpoint(rotation.getRadians());
   }
+
+  @Override
+  public void setTurnPositionRad(double positionRad) {
+    turnClosedLoop = true;
+    turnController.setSetpoint(positionRad);
+  }
 }
@@ -33,7 +33,6 @@ import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.units.measure.Current;
 import edu.wpi.first.units.measure.Voltage;
 import frc.robot.generated.TunerConstants;
-import java.util.Queue;
 
 /**
  * Module IO implementation for Talon FXS drive motor controller, Talon FXS turn motor controller,
@@ -52,12 +51,13 @@ public class ModuleIOTalonFXS implements ModuleIO {
   private final PositionVoltage positionVoltageRequest = new PositionVoltage(0.0);
   private final VelocityVoltage velocityVoltageRequest = new VelocityVoltage(0.0);
 
-  // Timestamp inputs from Phoenix thread
-  private final Queue<Double> timestampQueue;
+  // Odometry samples from Phoenix thread
+  private final OdometrySampleBuffer timestampBuffer;
+  private final PhoenixOdometryThread.SampleCursor odometryCursor;
 
   // Inputs from drive motor
   private final StatusSignal<Angle> drivePosition;
-  private final Queue<Double> drivePositionQueue;
+  private final OdometrySampleBuffer drivePositionBuffer;
   private final StatusSignal<AngularVelocity> driveVelocity;
   private final StatusSignal<Voltage> driveAppliedVolts;
   private final StatusSignal<Current> driveCurrent;
@@ -65,7 +65,7 @@ public class ModuleIOTalonFXS implements ModuleIO {
   // Inputs from turn motor
   private final StatusSignal<Angle> turnAbsolutePosition;
   private final StatusSignal<Angle> turnPosition;
-  private final Queue<Double> turnPositionQueue;
+  private final OdometrySampleBuffer turnPositionBuffer;
   private final StatusSignal<AngularVelocity> turnVelocity;
   private final StatusSignal<Voltage> turnAppliedVolts;
   private final StatusSignal<Current> turnCurrent;
@@ -154,12 +154,12 @@ public class ModuleIOTalonFXS implements ModuleIO {
     candiConfig.PWM1.SensorDirection = constants.EncoderInverted;
     candi.getConfigurator().apply(candiConfig);
 
-    // Create timestamp queue
-    timestampQueue = PhoenixOdometryThread.getInstance().makeTimestampQueue();
+    // Get shared timestamp buffer
+    timestampBuffer = PhoenixOdometryThread.getInstance().getTimestampBuffer();
 
     // Create drive status signals
     drivePosition = driveTalon.getPosition();
-    drivePositionQueue = PhoenixOdometryThread.getInstance().registerSignal(drivePosition.clone());
+    drivePositionBuffer = PhoenixOdometryThread.getInstance().registerSignal(drivePosition.clone());
     driveVelocity = driveTalon.getVelocity();
     driveAppliedVolts = driveTalon.getMotorVoltage();
     driveCurrent = driveTalon.getStatorCurrent();
@@ -167,11 +167,14 @@ public class ModuleIOTalonFXS implements ModuleIO {
     // Create turn status signals
     turnAbsolutePosition = candi.getPWM1Position();
     turnPosition = turnTalon.getPosition();
-    turnPositionQueue = PhoenixOdometryThread.getInstance().registerSignal(turnPosition.clone());
+    turnPositionBuffer = PhoenixOdometryThread.getInstance().registerSignal(turnPosition.clone());
     turnVelocity = turnTalon.getVelocity();
     turnAppliedVolts = turnTalon.getMotorVoltage();
     turnCurrent = turnTalon.getStatorCurrent();
 
+    // Start reading odometry samples published after registration
+    odometryCursor = PhoenixOdometryThread.getInstance().makeCursor();
+
     // Configure periodic frames
     BaseStatusSignal.setUpdateFrequencyForAll(
         Drive.ODOMETRY_FREQUENCY, drivePosition, turnPosition);
@@ -213,19 +216,32 @@ public class ModuleIOTalonFXS implements ModuleIO {
     inputs.turnCurrentAmps = turnCurrent.getValueAsDouble();
 
     // Update odometry inputs
-    inputs.odometryTimestamps =
-        timestampQueue.stream().mapToDouble((Double value) -> value).toArray();
-    inputs.odometryDrivePositionsRad =
-        drivePositionQueue.stream()
-            .mapToDouble((Double value) -> Units.rotationsToRadians(value))
-            .toArray();
-    inputs.odometryTurnPositions =
-        turnPositionQueue.stream()
-            .map((Double value) -> Rotation2d.fromRotations(value))
-            .toArray(Rotation2d[]::new);
-    timestampQueue.clear();
-    drivePositionQueue.clear();
-    turnPositionQueue.clear();
+    int sampleCount = odometryCursor.advance();
+    inputs.odometryTimestamps = new double[sampleCount];
+    inputs.odometryDrivePositionsRad = new double[sampleCount];
+    inputs.odometryTurnPositions = new Rotation2d[sampleCount];
+    for (int i = 0; i < sampleCount; i++) {
+      long sequence = odometryCursor.getSequence(i);
+      inputs.odometryTimestamps[i] = timestampBuffer.get(sequence);
+      inputs.odometryDrivePositionsRad[i] =
+          Units.rotationsToRadians(drivePositionBuffer.get(sequence));
+      inputs.odometryTurnPositions[i] = Rotation2d.fromRotations(turnPositionBuffer.get(sequence));
+    }
+  }
+
+  @Override
+  public boolean hasOdometryThreadSamples() {
+    return true;
+  }
+
+  @Override
+  public double getOdometryDrivePositionRad(long sequence) {
+    return Units.rotationsToRadians(drivePositionBuffer.get(sequence));
+  }
+
+  @Override
+  public double getOdometryTurnPositionRad(long sequence) {
+    return Units.rotationsToRadians(turnPositionBuffer.get(sequence));
   }
 
   @Override
@@ -248,4 +264,10 @@ public class ModuleIOTalonFXS implements ModuleIO {
   public void setTurnPosition(Rotation2d rotation) {
     turnTalon.setControl(positionVoltageRequest.withPosition(rotation.getRotations()));
   }
+
+  @Override
+  public void setTurnPositionRad(double positionRad) {
+    turnTalon.setControl(
+        positionVoltageRequest.withPosition(Units.radiansToRotations(positionRad)));
+  }
 }
@@ -0,0 +1,37 @@
+// Copyright (c) 2021-2026 Littleton Robotics
+// http://github.com/Mechanical-Advantage
+//
+// Use of this source code is governed by a BSD
+// license that can be found in the LICENSE file
+// at the root directory of this project.
+
+package frc.robot.subsystems.drive;
+
+/**
+ * Fixed-capacity ring of primitive samples filled by {@link PhoenixOdometryThread}.
+ *
+ * <p>Each buffer has exactly one writer (the odometry thread) and one reader (the main loop). Slots
+ * are addressed by the thread's shared sample sequence instead of a per-buffer head and tail, so
+ * every signal registered with the thread stays aligned without boxing or locking. Readers should
+ * only access sequences handed out by a {@link PhoenixOdometryThread.SampleCursor}.
+ */
+public class OdometrySampleBuffer {
+  /** Number of samples retained by each buffer. Must be a power of two. */
+  static final int CAPACITY = 32;
+
+  private static final int MASK = CAPACITY - 1;
+
+  private final double[] samples = new double[CAPACITY];
+
+  OdometrySampleBuffer() {}
+
+  /** Stores a sample. Only called from the odometry thread, before the sequence is published. */
+  void write(long sequence, double value) {
+    samples[(int) (sequence & MASK)] = value;
+  }
+
+  /** Returns the sample recorded for the specified sequence. */
+  public double get(long sequence) {
+    return samples[(int) (sequence & MASK)];
+  }
+}
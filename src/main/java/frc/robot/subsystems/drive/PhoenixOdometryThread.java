@@ -14,8 +14,6 @@ import edu.wpi.first.wpilibj.RobotController;
 import frc.robot.generated.TunerConstants;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.DoubleSupplier;
@@ -33,9 +31,17 @@ public class PhoenixOdometryThread extends Thread {
       new ReentrantLock(); // Prevents conflicts when registering signals
   private BaseStatusSignal[] phoenixSignals = new BaseStatusSignal[0];
   private final List<DoubleSupplier> genericSignals = new ArrayList<>();
-  private final List<Queue<Double>> phoenixQueues = new ArrayList<>();
-  private final List<Queue<Double>> genericQueues = new ArrayList<>();
-  private final List<Queue<Double>> timestampQueues = new ArrayList<>();
+  private final List<OdometrySampleBuffer> phoenixBuffers = new ArrayList<>();
+  private final List<OdometrySampleBuffer> genericBuffers = new ArrayList<>();
+  private final OdometrySampleBuffer timestampBuffer = new OdometrySampleBuffer();
+  private final List<SampleListener> sampleListeners = new ArrayList<>();
+
+  // Sequence of the most recent complete sample. Only written by this thread; the volatile write
+  // publishes every buffer slot written before it to the main loop.
+  private volatile long publishedSequence = 0;
+
+  // Sequence visible to the current main loop cycle (see captureSnapshot)
+  private long snapshotSequence = 0;
 
   private static boolean isCANFD = TunerConstants.kCANBus.isNetworkFD();
   private static PhoenixOdometryThread instance = null;
@@ -54,54 +60,77 @@ public class PhoenixOdometryThread extends Thread {
 
   @Override
   public void start() {
-    if (timestampQueues.size() > 0) {
+    if (phoenixSignals.length > 0 || genericSignals.size() > 0) {
       super.start();
     }
   }
 
   /** Registers a Phoenix signal to be read from the thread. */
-  public Queue<Double> registerSignal(StatusSignal<Angle> signal) {
-    Queue<Double> queue = new ArrayBlockingQueue<>(20);
+  public OdometrySampleBuffer registerSignal(StatusSignal<Angle> signal) {
+    OdometrySampleBuffer buffer = new OdometrySampleBuffer();
     signalsLock.lock();
-    Drive.odometryLock.lock();
     try {
       BaseStatusSignal[] newSignals = new BaseStatusSignal[phoenixSignals.length + 1];
       System.arraycopy(phoenixSignals, 0, newSignals, 0, phoenixSignals.length);
       newSignals[phoenixSignals.length] = signal;
       phoenixSignals = newSignals;
-      phoenixQueues.add(queue);
+      phoenixBuffers.add(buffer);
     } finally {
       signalsLock.unlock();
-      Drive.odometryLock.unlock();
     }
-    return queue;
+    return buffer;
   }
 
   /** Registers a generic signal to be read from the thread. */
-  public Queue<Double> registerSignal(DoubleSupplier signal) {
-    Queue<Double> queue = new ArrayBlockingQueue<>(20);
+  public OdometrySampleBuffer registerSignal(DoubleSupplier signal) {
+    OdometrySampleBuffer buffer = new OdometrySampleBuffer();
     signalsLock.lock();
-    Drive.odometryLock.lock();
     try {
       genericSignals.add(signal);
-      genericQueues.add(queue);
+      genericBuffers.add(buffer);
     } finally {
       signalsLock.unlock();
-      Drive.odometryLock.unlock();
     }
-    return queue;
+    return buffer;
+  }
+
+  /** Receives each sample on the odometry thread, before it is published to the main loop. */
+  @FunctionalInterface
+  public interface SampleListener {
+    void onSample(long sequence);
   }
 
-  /** Returns a new queue that returns timestamp values for each sample. */
-  public Queue<Double> makeTimestampQueue() {
-    Queue<Double> queue = new ArrayBlockingQueue<>(20);
-    Drive.odometryLock.lock();
+  /** Registers a listener to be called from the thread after each sample is written. */
+  public void addSampleListener(SampleListener listener) {
+    signalsLock.lock();
     try {
-      timestampQueues.add(queue);
+      sampleListeners.add(listener);
     } finally {
-      Drive.odometryLock.unlock();
+      signalsLock.unlock();
     }
-    return queue;
+  }
+
+  /** Returns the buffer of timestamp values shared by every sample. */
+  public OdometrySampleBuffer getTimestampBuffer() {
+    return timestampBuffer;
+  }
+
+  /** Returns a new cursor positioned after the most recently published sample. */
+  public SampleCursor makeCursor() {
+    return new SampleCursor(publishedSequence);
+  }
+
+  /**
+   * Fixes the set of samples visible to cursors for this cycle, so every module and the gyro read
+   * the same samples. Must be called from the main loop before any inputs are updated.
+   */
+  public void captureSnapshot() {
+    snapshotSequence = publishedSequence;
+  }
+
+  /** Returns the sequence of the newest sample in the current snapshot. */
+  public long getSnapshotSequence() {
+    return snapshotSequence;
   }
 
   @Override
@@ -119,15 +148,7 @@ public class PhoenixOdometryThread extends Thread {
           Thread.sleep((long) (1000.0 / Drive.ODOMETRY_FREQUENCY));
           if (phoenixSignals.length > 0) BaseStatusSignal.refreshAll(phoenixSignals);
         }
-      } catch (InterruptedException e) {
-        e.printStackTrace();
-      } finally {
-        signalsLock.unlock();
-      }
 
-      // Save new data to queues
-      Drive.odometryLock.lock();
-      try {
         // Sample timestamp is current FPGA time minus average CAN latency
         // Default timestamps from Phoenix are NOT compatible with
         // FPGA timestamps, this solution is imperfect but close
@@ -140,19 +161,60 @@ public class PhoenixOdometryThread extends Thread {
           timestamp -= totalLatency / phoenixSignals.length;
         }
 
-        // Add new samples to queues
+        // Write new samples and run the listeners, then publish them all at once
+        long sequence = publishedSequence + 1;
+        timestampBuffer.write(sequence, timestamp);
         for (int i = 0; i < phoenixSignals.length; i++) {
-          phoenixQueues.get(i).offer(phoenixSignals[i].getValueAsDouble());
+          phoenixBuffers.get(i).write(sequence, phoenixSignals[i].getValueAsDouble());
         }
         for (int i = 0; i < genericSignals.size(); i++) {
-          genericQueues.get(i).offer(genericSignals.get(i).getAsDouble());
+          genericBuffers.get(i).write(sequence, genericSignals.get(i).getAsDouble());
         }
-        for (int i = 0; i < timestampQueues.size(); i++) {
-          timestampQueues.get(i).offer(timestamp);
+        for (int i = 0; i < sampleListeners.size(); i++) {
+          sampleListeners.get(i).onSample(sequence);
         }
+        publishedSequence = sequence;
+      } catch (InterruptedException e) {
+        e.printStackTrace();
       } finally {
-        Drive.odometryLock.unlock();
+        signalsLock.unlock();
       }
     }
   }
+
+  /**
+   * Tracks one consumer's position in the shared sample sequence. Cursors are only used from the
+   * main loop.
+   */
+  public static class SampleCursor {
+    // Samples this close to being overwritten are skipped, leaving the odometry thread room to keep
+    // writing while the main loop reads (8 samples is 32 ms at 250 Hz)
+    private static final int OVERWRITE_MARGIN = 8;
+
+    private long lastSequence;
+    private long firstSequence = 1;
+    private int count = 0;
+
+    private SampleCursor(long lastSequence) {
+      this.lastSequence = lastSequence;
+    }
+
+    /**
+     * Advances to the samples captured by the latest snapshot and returns how many are new. If the
+     * main loop stalled long enough for the buffers to wrap, the oldest samples are dropped.
+     */
+    public int advance() {
+      long endSequence = getInstance().snapshotSequence;
+      long oldestSafe = endSequence - (OdometrySampleBuffer.CAPACITY - OVERWRITE_MARGIN) + 1;
+      firstSequence = Math.max(lastSequence + 1, oldestSafe);
+      count = (int) Math.max(0, endSequence - firstSequence + 1);
+      lastSequence = Math.max(lastSequence, endSequence);
+      return count;
+    }
+
+    /** Returns the sequence of the specified sample from the last call to {@link #advance()}. */
+    public long getSequence(int index) {
+      return firstSequence + index;
+    }
+  }
 }
@@ -7,6 +7,9 @@ import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 import frc.robot.FieldConstants;
 import frc.robot.FieldConstants.AprilTagLayoutType;
+import frc.robot.util.LogKeys;
+import frc.robot.util.LogKeys.Key;
+import frc.robot.util.LoopProfiler;
 import java.util.*;
 import java.util.stream.Collectors;
 import org.littletonrobotics.junction.Logger;
@@ -20,12 +23,31 @@ import org.littletonrobotics.junction.Logger;
  * <p>DOES NOT depend on global pose estimator.
  */
 public class TurretCamera extends SubsystemBase {
+  private final LoopProfiler.Section profilerSection = LoopProfiler.section("TurretCamera");
 
   // ===================== CONFIG =====================
 
   private static final double YAW_TOLERANCE_RAD = Math.toRadians(1.5);
   private static final int REQUIRED_STABLE_FRAMES = 3;
   private static final int DISTANCE_FILTER_SIZE = 5;
+  private static final int MAX_LOGGED_TARGETS = 16; // Extra targets are used but not logged
+
+  // ===================== LOG KEYS =====================
+
+  private static final int TAG_ID = 0;
+  private static final int YAW_DEG = 1;
+  private static final int CAM_TO_TAG_X = 2;
+  private static final int CAM_TO_TAG_Y = 3;
+  private static final int CAM_TO_TAG_Z = 4;
+  private static final Key[][] targetKeys =
+      LogKeys.table(
+          "TurretCamera/Targets/",
+          MAX_LOGGED_TARGETS,
+          "TagID",
+          "YawDeg",
+          "CamToTagX",
+          "CamToTagY",
+          "CamToTagZ");
 
   // ===================== DEPENDENCIES =====================
 
@@ -61,6 +83,7 @@ public class TurretCamera extends SubsystemBase {
 
   @Override
   public void periodic() {
+    profilerSection.enter();
     var targets = visionSupplier.getTargets();
     Logger.recordOutput("TurretCamera/TargetCount", targets.size());
 
@@ -71,14 +94,16 @@ public class TurretCamera extends SubsystemBase {
 
     int index = 0;
     for (var target : targets) {
+      if (index >= MAX_LOGGED_TARGETS) break;
+      Key[] keys = targetKeys[index];
 
-      Logger.recordOutput("TurretCamera/Targets/" + index + "/TagID", target.getFiducialId());
-      Logger.recordOutput("TurretCamera/Targets/" + index + "/YawDeg", target.getYaw());
+      LogKeys.record(keys[TAG_ID], target.getFiducialId());
+      LogKeys.record(keys[YAW_DEG], target.getYaw());
 
       Transform3d t = target.getBestCameraToTarget();
-      Logger.recordOutput("TurretCamera/Targets/" + index + "/CamToTagX", t.getX());
-      Logger.recordOutput("TurretCamera/Targets/" + index + "/CamToTagY", t.getY());
-      Logger.recordOutput("TurretCamera/Targets/" + index + "/CamToTagZ", t.getZ());
+      LogKeys.record(keys[CAM_TO_TAG_X], t.getX());
+      LogKeys.record(keys[CAM_TO_TAG_Y], t.getY());
+      LogKeys.record(keys[CAM_TO_TAG_Z], t.getZ());
 
       index++;
     }
@@ -111,13 +136,21 @@ public class TurretCamera extends SubsystemBase {
               );
 
       // ===================== STEP 2: robot pose =====================
-      Transform3d robotToCamera = getRobotToCameraTransform(turretSupplier.getTurretAngleRad());
-
-      Rotation2d robotRotation = robotRotationSupplier.getRobotRotation();
+      // Use the turret angle and robot heading from when the frame was captured
+      double frameTimestamp = target.getTimestampSeconds();
+      boolean timed = !Double.isNaN(frameTimestamp);
+      Transform3d robotToCamera =
+          getRobotToCameraTransform(
+              timed ? turretSupplier.getTurretAngleRadAt(frameTimestamp) : turretAngle);
+
+      double robotHeadingRad =
+          timed
+              ? robotRotationSupplier.getRobotRotationRadAt(frameTimestamp)
+              : robotRotationSupplier.getRobotRotation().getRadians();
       Pose3d robotPose =
           new Pose3d(
               cameraPose.getTranslation().minus(robotToCamera.getTranslation()),
-              new Rotation3d(0, 0, robotRotation.getRadians()));
+              new Rotation3d(0, 0, robotHeadingRad));
       Logger.recordOutput("TurretCamera/ComputedRobotPose", robotPose.toPose2d());
 
       // ===================== STEP 3: distance =====================
@@ -243,6 +276,11 @@ public class TurretCamera extends SubsystemBase {
   /** Abstract turret dependency */
   public interface TurretSupplier {
     double getTurretAngleRad();
+
+    /** Turret angle at a past timestamp. Defaults to the current angle. */
+    default double getTurretAngleRadAt(double timestampSeconds) {
+      return getTurretAngleRad();
+    }
   }
 
   /** Abstract vision dependency */
@@ -257,17 +295,29 @@ public class TurretCamera extends SubsystemBase {
     Transform3d getBestCameraToTarget();
 
     double getYaw(); // degrees
+
+    /** FPGA timestamp the frame was captured at, or NaN if unknown. */
+    default double getTimestampSeconds() {
+      return Double.NaN;
+    }
   }
 
   public static class SimpleVisionTarget implements VisionTarget {
     private final int id;
     private final Transform3d transform;
     private final double yawDeg;
+    private final double timestampSeconds;
 
     public SimpleVisionTarget(int id, Transform3d transform, double yawDeg) {
+      this(id, transform, yawDeg, Double.NaN);
+    }
+
+    public SimpleVisionTarget(
+        int id, Transform3d transform, double yawDeg, double timestampSeconds) {
       this.id = id;
       this.transform = transform;
       this.yawDeg = yawDeg;
+      this.timestampSeconds = timestampSeconds;
     }
 
     @Override
@@ -284,9 +334,47 @@ public class TurretCamera extends SubsystemBase {
     public double getYaw() {
       return yawDeg;
     }
+
+    @Override
+    public double getTimestampSeconds() {
+      return timestampSeconds;
+    }
   }
 
   public interface RobotRotationSupplier {
     Rotation2d getRobotRotation();
+
+    /** Robot heading in radians at a past timestamp. Defaults to the current heading. */
+    default double getRobotRotationRadAt(double timestampSeconds) {
+      return getRobotRotation().getRadians();
+    }
+  }
+
+  @FunctionalInterface
+  public interface PoseHistory {
+    /** Writes (x, y, heading radians) at a past timestamp to out, returning false if unknown. */
+    boolean samplePoseAt(double timestampSeconds, double[] out);
+  }
+
+  /**
+   * Builds a rotation supplier from the drive's pose history, so frames use the heading from when
+   * they were captured.
+   */
+  public static RobotRotationSupplier fromPoseHistory(
+      RobotRotationSupplier current, PoseHistory history) {
+    double[] sample = new double[3];
+    return new RobotRotationSupplier() {
+      @Override
+      public Rotation2d getRobotRotation() {
+        return current.getRobotRotation();
+      }
+
+      @Override
+      public double getRobotRotationRadAt(double timestampSeconds) {
+        return history.samplePoseAt(timestampSeconds, sample)
+            ? sample[2]
+            : current.getRobotRotation().getRadians();
+      }
+    };
   }
 }
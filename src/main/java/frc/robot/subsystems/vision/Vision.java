@@ -16,7 +16,6 @@ package frc.robot.subsystems.vision;
 import static frc.robot.subsystems.vision.VisionConstants.*;
 
 import edu.wpi.first.math.Matrix;
-import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.math.geometry.Rotation2d;
@@ -32,19 +31,54 @@ import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 import frc.robot.subsystems.Turret;
 import frc.robot.subsystems.vision.VisionIO.PoseObservationType;
-import frc.robot.subsystems.vision.VisionIO.VisionIOInputs;
-import java.util.LinkedList;
-import java.util.List;
+import frc.robot.util.LogKeys;
+import frc.robot.util.LogKeys.Key;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.ReplayStats;
 import org.littletonrobotics.junction.AutoLogOutput;
 import org.littletonrobotics.junction.Logger;
 
 public class Vision extends SubsystemBase {
+  private final LoopProfiler.Section profilerSection = LoopProfiler.section("Vision");
+
   private final VisionConsumer consumer;
   private final VisionIO[] io;
-  private final VisionIOInputs[] inputs; // change to something new
+  private final VisionIOInputsAutoLogged[] inputs;
+  private final Key[] inputsKeys;
   private final Alert[] disconnectedAlerts;
   private Turret turret;
 
+  // Maximum poses logged per camera per loop, extra poses are still processed but not logged
+  private static final int MAX_TAG_POSES_PER_CAMERA = 32;
+  private static final int MAX_ROBOT_POSES_PER_CAMERA = 16;
+
+  // Camera -> turret (fixed mount offset)
+  private static final Transform3d cameraToTurret =
+      new Transform3d(
+          new Translation3d(Units.inchesToMeters(7), 0.0, 0),
+          new Rotation3d(0, Units.degreesToRadians(30), 0));
+
+  // Tag poses indexed by ID, so lookups don't allocate Optionals
+  private final Pose3d[] tagPosesById;
+
+  // Per-camera state, resolved once at construction
+  private final boolean[] isTurretCam;
+  private final Matrix<N3, N1>[] stdDevs;
+  private final Key[] tagPosesKeys;
+  private final Key[] robotPosesKeys;
+  private final Key[] robotPosesAcceptedKeys;
+  private final Key[] robotPosesRejectedKeys;
+
+  // Log buffers, reused every loop
+  private final PoseLogBuffer[] tagPoses;
+  private final PoseLogBuffer[] robotPoses;
+  private final PoseLogBuffer[] robotPosesAccepted;
+  private final PoseLogBuffer[] robotPosesRejected;
+  private final PoseLogBuffer allTagPoses;
+  private final PoseLogBuffer allRobotPoses;
+  private final PoseLogBuffer allRobotPosesAccepted;
+  private final PoseLogBuffer allRobotPosesRejected;
+
   @AutoLogOutput public boolean isAllowedToSend = true;
 
   @AutoLogOutput private int noGoodPosesCount = 0;
@@ -61,9 +95,10 @@ public class Vision extends SubsystemBase {
     this.turret = turret;
 
     // Initialize inputs
-    this.inputs = new VisionIOInputs[io.length];
+    this.inputs = new VisionIOInputsAutoLogged[io.length];
+    this.inputsKeys = LogKeys.indexed("Vision/Camera", io.length, "");
     for (int i = 0; i < inputs.length; i++) {
-      inputs[i] = new VisionIOInputs();
+      inputs[i] = new VisionIOInputsAutoLogged();
     }
 
     // Initialize disconnected alerts
@@ -73,15 +108,44 @@ public class Vision extends SubsystemBase {
           new Alert(
               "Vision camera " + Integer.toString(i) + " is disconnected.", AlertType.kWarning);
     }
-  }
 
-  @AutoLogOutput
-  private Rotation2d getTurretRotation() {
-    // Rotation2d robotHeading = drive.getRotation(); // field-relative
-    Rotation2d turretRelative = Rotation2d.fromRadians(turret.getTurretAngleRad());
-    return turretRelative;
-    // return robotHeading.plus(turretRelative);
+    // Cache tag poses
+    int maxTagId = 0;
+    for (var tag : aprilTagLayout.getTags()) {
+      maxTagId = Math.max(maxTagId, tag.ID);
+    }
+    tagPosesById = new Pose3d[maxTagId + 1];
+    for (var tag : aprilTagLayout.getTags()) {
+      tagPosesById[tag.ID] = tag.pose;
+    }
+
+    // Initialize per-camera state
+    isTurretCam = new boolean[io.length];
+    @SuppressWarnings("unchecked")
+    Matrix<N3, N1>[] stdDevMatrices = new Matrix[io.length];
+    stdDevs = stdDevMatrices;
+    tagPosesKeys = LogKeys.indexed("Vision/Camera", io.length, "/TagPoses");
+    robotPosesKeys = LogKeys.indexed("Vision/Camera", io.length, "/RobotPoses");
+    robotPosesAcceptedKeys = LogKeys.indexed("Vision/Camera", io.length, "/RobotPosesAccepted");
+    robotPosesRejectedKeys = LogKeys.indexed("Vision/Camera", io.length, "/RobotPosesRejected");
+    tagPoses = new PoseLogBuffer[io.length];
+    robotPoses = new PoseLogBuffer[io.length];
+    robotPosesAccepted = new PoseLogBuffer[io.length];
+    robotPosesRejected = new PoseLogBuffer[io.length];
+    for (int i = 0; i < io.length; i++) {
+      isTurretCam[i] = io[i].getName().equals("limelight-turret");
+      stdDevs[i] = new Matrix<>(N3.instance, N1.instance);
+      tagPoses[i] = new PoseLogBuffer(MAX_TAG_POSES_PER_CAMERA);
+      robotPoses[i] = new PoseLogBuffer(MAX_ROBOT_POSES_PER_CAMERA);
+      robotPosesAccepted[i] = new PoseLogBuffer(MAX_ROBOT_POSES_PER_CAMERA);
+      robotPosesRejected[i] = new PoseLogBuffer(MAX_ROBOT_POSES_PER_CAMERA);
+    }
+    allTagPoses = new PoseLogBuffer(MAX_TAG_POSES_PER_CAMERA * io.length);
+    allRobotPoses = new PoseLogBuffer(MAX_ROBOT_POSES_PER_CAMERA * io.length);
+    allRobotPosesAccepted = new PoseLogBuffer(MAX_ROBOT_POSES_PER_CAMERA * io.length);
+    allRobotPosesRejected = new PoseLogBuffer(MAX_ROBOT_POSES_PER_CAMERA * io.length);
   }
+
   /**
    * Returns the X angle to the best target, which can be used for simple servoing with vision.
    *
@@ -91,68 +155,66 @@ public class Vision extends SubsystemBase {
     return inputs[cameraIndex].latestTargetObservation.tx();
   }
 
-  private Pose3d transformTurretPoseToRobot(Pose3d cameraPose) {
+  private Pose3d transformTurretPoseToRobot(Pose3d cameraPose, double timestampSeconds) {
 
-    // 1. Get turret rotation (field-relative)
-    Rotation2d turretRotation = getTurretRotation();
+    // 1. Get turret rotation when the frame was captured, not now, so slewing doesn't smear the
+    // pose
+    double turretAngleRad = turret.getTurretAngleRadAt(timestampSeconds);
     // IMPORTANT: must be robot-relative rotation
 
     // 2. Build turret -> robot transform (WITH ROTATION)
     Transform3d turretToRobot =
         new Transform3d(
             Constants.Turret.turretOffset.unaryMinus(), // reversed to go to robot
-            new Rotation3d(0, 0, turretRotation.getRadians()));
+            new Rotation3d(0, 0, turretAngleRad));
 
-    // 3. Camera -> turret (fixed mount offset)
-    Transform3d cameraToTurret =
-        new Transform3d(
-            new Translation3d(Units.inchesToMeters(7), 0.0, 0),
-            new Rotation3d(0, Units.degreesToRadians(30), 0));
-    ;
-
-    // 4. Combine transforms
+    // 3. Combine transforms
     Transform3d cameraToRobot = cameraToTurret.plus(turretToRobot);
 
-    // 5. Apply to pose
+    // 4. Apply to pose
     return cameraPose.transformBy(cameraToRobot);
   }
 
   @Override
   public void periodic() {
-    if (!isAllowedToSend) return;
+    profilerSection.enter();
 
-    int camerasWithPoseTemp = 0;
+    // Always drain the cameras so frames don't pile up while sending is disabled
     for (int i = 0; i < io.length; i++) {
       io[i].updateInputs(inputs[i]);
-      // Logger.processInputs("Vision/Camera" + Integer.toString(i), inputs[i]);
+      LogKeys.processInputs(inputsKeys[i], inputs[i]);
     }
+    if (!isAllowedToSend) return;
+
+    int camerasWithPoseTemp = 0;
 
     // Initialize logging values
-    List<Pose3d> allTagPoses = new LinkedList<>();
-    List<Pose3d> allRobotPoses = new LinkedList<>();
-    List<Pose3d> allRobotPosesAccepted = new LinkedList<>();
-    List<Pose3d> allRobotPosesRejected = new LinkedList<>();
+    allTagPoses.clear();
+    allRobotPoses.clear();
+    allRobotPosesAccepted.clear();
+    allRobotPosesRejected.clear();
 
     bolFoundGood = false;
     // Loop over cameras
     for (int cameraIndex = 0; cameraIndex < io.length; cameraIndex++) {
 
-      boolean isTurretCam = io[cameraIndex].getName().equals("limelight-turret");
-
       // Update disconnected alert
       disconnectedAlerts[cameraIndex].set(!inputs[cameraIndex].connected);
 
       // Initialize logging values
-      List<Pose3d> tagPoses = new LinkedList<>();
-      List<Pose3d> robotPoses = new LinkedList<>();
-      List<Pose3d> robotPosesAccepted = new LinkedList<>();
-      List<Pose3d> robotPosesRejected = new LinkedList<>();
+      PoseLogBuffer tagPoses = this.tagPoses[cameraIndex];
+      PoseLogBuffer robotPoses = this.robotPoses[cameraIndex];
+      PoseLogBuffer robotPosesAccepted = this.robotPosesAccepted[cameraIndex];
+      PoseLogBuffer robotPosesRejected = this.robotPosesRejected[cameraIndex];
+      tagPoses.clear();
+      robotPoses.clear();
+      robotPosesAccepted.clear();
+      robotPosesRejected.clear();
 
       // Add tag poses
       for (int tagId : inputs[cameraIndex].tagIds) {
-        var tagPose = aprilTagLayout.getTagPose(tagId);
-        if (tagPose.isPresent()) {
-          tagPoses.add(tagPose.get());
+        if (tagId >= 0 && tagId < tagPosesById.length && tagPosesById[tagId] != null) {
+          tagPoses.add(tagPosesById[tagId]);
         }
       }
 
@@ -161,8 +223,8 @@ public class Vision extends SubsystemBase {
 
         Pose3d pose = observation.pose();
 
-        if (isTurretCam) {
-          pose = transformTurretPoseToRobot(pose);
+        if (isTurretCam[cameraIndex]) {
+          pose = transformTurretPoseToRobot(pose, observation.timestamp());
         }
 
         // Check whether to reject pose
@@ -189,6 +251,7 @@ public class Vision extends SubsystemBase {
         } else {
           robotPosesAccepted.add(pose);
         }
+        ReplayStats.recordVisionObservation(!rejectPose);
 
         // Skip if rejected
         if (rejectPose) {
@@ -218,27 +281,20 @@ public class Vision extends SubsystemBase {
         //   if (DriverStation.isDisabled()
         //       || camerasWithPoseCount
         //          >= 2) { // ignore when only one camera is visible (delayed one loop)
-        // Send vision observation
-        consumer.accept(
-            pose.toPose2d(),
-            observation.timestamp(),
-            VecBuilder.fill(linearStdDev, linearStdDev, angularStdDev));
+        // Send vision observation (the pose estimator copies the std devs, so the matrix is reused)
+        Matrix<N3, N1> cameraStdDevs = stdDevs[cameraIndex];
+        cameraStdDevs.set(0, 0, linearStdDev);
+        cameraStdDevs.set(1, 0, linearStdDev);
+        cameraStdDevs.set(2, 0, angularStdDev);
+        consumer.accept(pose.toPose2d(), observation.timestamp(), cameraStdDevs);
         // }
       }
 
       // Log camera datadata
-      Logger.recordOutput(
-          "Vision/Camera" + Integer.toString(cameraIndex) + "/TagPoses",
-          tagPoses.toArray(new Pose3d[tagPoses.size()]));
-      Logger.recordOutput(
-          "Vision/Camera" + Integer.toString(cameraIndex) + "/RobotPoses",
-          robotPoses.toArray(new Pose3d[robotPoses.size()]));
-      Logger.recordOutput(
-          "Vision/Camera" + Integer.toString(cameraIndex) + "/RobotPosesAccepted",
-          robotPosesAccepted.toArray(new Pose3d[robotPosesAccepted.size()]));
-      Logger.recordOutput(
-          "Vision/Camera" + Integer.toString(cameraIndex) + "/RobotPosesRejected",
-          robotPosesRejected.toArray(new Pose3d[robotPosesRejected.size()]));
+      LogKeys.record(tagPosesKeys[cameraIndex], tagPoses.toLogArray());
+      LogKeys.record(robotPosesKeys[cameraIndex], robotPoses.toLogArray());
+      LogKeys.record(robotPosesAcceptedKeys[cameraIndex], robotPosesAccepted.toLogArray());
+      LogKeys.record(robotPosesRejectedKeys[cameraIndex], robotPosesRejected.toLogArray());
       allTagPoses.addAll(tagPoses);
       allRobotPoses.addAll(robotPoses);
       allRobotPosesAccepted.addAll(robotPosesAccepted);
@@ -247,7 +303,7 @@ public class Vision extends SubsystemBase {
       if (robotPosesAccepted.size() > 0) camerasWithPoseTemp++;
     }
 
-    if (allRobotPosesAccepted.isEmpty() || !bolFoundGood) {
+    if (allRobotPosesAccepted.size() == 0 || !bolFoundGood) {
       noGoodPosesCount++;
     } else {
       noGoodPosesCount = 0;
@@ -256,16 +312,55 @@ public class Vision extends SubsystemBase {
     camerasWithPoseCount = camerasWithPoseTemp; // update class variable with total.
 
     // Log summary data
-    Logger.recordOutput(
-        "Vision/Summary/TagPoses", allTagPoses.toArray(new Pose3d[allTagPoses.size()]));
-    Logger.recordOutput(
-        "Vision/Summary/RobotPoses", allRobotPoses.toArray(new Pose3d[allRobotPoses.size()]));
-    Logger.recordOutput(
-        "Vision/Summary/RobotPosesAccepted",
-        allRobotPosesAccepted.toArray(new Pose3d[allRobotPosesAccepted.size()]));
-    Logger.recordOutput(
-        "Vision/Summary/RobotPosesRejected",
-        allRobotPosesRejected.toArray(new Pose3d[allRobotPosesRejected.size()]));
+    Logger.recordOutput("Vision/Summary/TagPoses", allTagPoses.toLogArray());
+    Logger.recordOutput("Vision/Summary/RobotPoses", allRobotPoses.toLogArray());
+    Logger.recordOutput("Vision/Summary/RobotPosesAccepted", allRobotPosesAccepted.toLogArray());
+    Logger.recordOutput("Vision/Summary/RobotPosesRejected", allRobotPosesRejected.toLogArray());
+  }
+
+  /**
+   * Fixed-capacity pose list for logging. AdvantageKit serializes struct arrays when they are
+   * recorded, so the exact-size arrays handed to the logger are cached by length and reused.
+   */
+  private static class PoseLogBuffer {
+    private final Pose3d[] poses;
+    private final Pose3d[][] logArrays;
+    private int size = 0;
+
+    PoseLogBuffer(int capacity) {
+      poses = new Pose3d[capacity];
+      logArrays = new Pose3d[capacity + 1][];
+    }
+
+    void clear() {
+      size = 0;
+    }
+
+    int size() {
+      return size;
+    }
+
+    void add(Pose3d pose) {
+      if (size < poses.length) {
+        poses[size++] = pose;
+      }
+    }
+
+    void addAll(PoseLogBuffer other) {
+      for (int i = 0; i < other.size; i++) {
+        add(other.poses[i]);
+      }
+    }
+
+    Pose3d[] toLogArray() {
+      Pose3d[] array = logArrays[size];
+      if (array == null) {
+        array = new Pose3d[size];
+        logArrays[size] = array;
+      }
+      System.arraycopy(poses, 0, array, 0, size);
+      return array;
+    }
   }
 
   @FunctionalInterface
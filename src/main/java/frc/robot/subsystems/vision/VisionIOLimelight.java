@@ -1,9 +1,6 @@
 package frc.robot.subsystems.vision;
 
-import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.math.geometry.Rotation3d;
-import edu.wpi.first.math.util.Units;
 import edu.wpi.first.networktables.*;
 import edu.wpi.first.wpilibj.RobotController;
 import java.util.*;
@@ -20,6 +17,11 @@ public class VisionIOLimelight implements VisionIO {
   private final DoubleSubscriber tySubscriber;
 
   private final DoubleArraySubscriber megatag1Subscriber;
+  private final VisionIngestThread.FrameQueue megatag1Frames;
+
+  private final double[] orientation = new double[6];
+  private final List<PoseObservation> poseObservations = new ArrayList<>();
+  private final Set<Integer> tagIds = new HashSet<>();
 
   private String m_name;
 
@@ -35,7 +37,9 @@ public class VisionIOLimelight implements VisionIO {
     txSubscriber = table.getDoubleTopic("tx").subscribe(0.0);
     tySubscriber = table.getDoubleTopic("ty").subscribe(0.0);
 
+    // Parsed off the main thread as values arrive
     megatag1Subscriber = table.getDoubleArrayTopic("botpose_wpiblue").subscribe(new double[] {});
+    megatag1Frames = VisionIngestThread.getInstance().register(megatag1Subscriber);
     // megatag2Subscriber =
     //    table.getDoubleArrayTopic("botpose_orb_wpiblue").subscribe(new double[] {});
   }
@@ -60,55 +64,24 @@ public class VisionIOLimelight implements VisionIO {
 
     // ===================== ORIENTATION (for MegaTag2) =====================
 
-    orientationPublisher.accept(
-        new double[] {rotationSupplier.get().getDegrees(), 0.0, 0.0, 0.0, 0.0, 0.0});
-    NetworkTableInstance.getDefault().flush();
+    orientation[0] = rotationSupplier.get().getDegrees();
+    orientationPublisher.accept(orientation);
+    VisionIngestThread.getInstance().requestFlush();
 
     // ===================== DATA STORAGE =====================
 
-    Set<Integer> tagIds = new HashSet<>();
-    List<PoseObservation> poseObservations = new LinkedList<>();
+    poseObservations.clear();
+    tagIds.clear();
 
     // ===================== MEGATAG1 =====================
 
-    for (var rawSample : megatag1Subscriber.readQueue()) {
-      if (rawSample.value.length == 0) continue;
-
-      int tagCount = (int) rawSample.value[7];
-      double avgDistance = rawSample.value[9];
-
-      // Collect tag IDs
-      for (int i = 11; i < rawSample.value.length; i += 7) {
-        tagIds.add((int) rawSample.value[i]);
+    // Frames were parsed and checked for tags by the ingest thread
+    VisionIngestThread.Frame frame;
+    while ((frame = megatag1Frames.poll()) != null) {
+      for (int tagId : frame.tagIds()) {
+        tagIds.add(tagId);
       }
-
-      // ===================== NORMAL POSE PIPELINE =====================
-
-      poseObservations.add(
-          new PoseObservation(
-              rawSample.timestamp * 1.0e-6 - rawSample.value[6] * 1.0e-3,
-              parsePose(rawSample.value),
-              rawSample.value.length >= 18 ? rawSample.value[17] : 0.0,
-              tagCount,
-              avgDistance,
-              PoseObservationType.MEGATAG_1));
-
-      // ===================== NEW: TURRET TARGET EXTRACTION =====================
-
-      // Only if we actually see tags
-      // if (tagCount > 0) {
-
-      //  double tx = txSubscriber.get();
-      //  double ty = tySubscriber.get();
-
-      //  for (int i = 11; i < rawSample.value.length; i += 7) {
-      //    int tagId = (int) rawSample.value[i];
-
-      //    turretTargets.add(
-      //        new TurretTargetObservation(
-      //            tagId, Rotation2d.fromDegrees(tx), Rotation2d.fromDegrees(ty), avgDistance));
-      //  }
-      // }
+      poseObservations.add(frame.observation());
     }
 
     // ===================== OPTIONAL MEGATAG2 =====================
@@ -145,16 +118,4 @@ public class VisionIOLimelight implements VisionIO {
       inputs.tagIds[i++] = id;
     }
   }
-
-  /** Parses the 3D pose from a Limelight botpose array. */
-  private static Pose3d parsePose(double[] rawLLArray) {
-    return new Pose3d(
-        rawLLArray[0],
-        rawLLArray[1],
-        rawLLArray[2],
-        new Rotation3d(
-            Units.degreesToRadians(rawLLArray[3]),
-            Units.degreesToRadians(rawLLArray[4]),
-            Units.degreesToRadians(rawLLArray[5])));
-  }
 }
@@ -0,0 +1,168 @@
+package frc.robot.subsystems.vision;
+
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTableListenerPoller;
+import edu.wpi.first.util.WPIUtilJNI;
+import frc.robot.subsystems.vision.VisionIO.PoseObservation;
+import frc.robot.subsystems.vision.VisionIO.PoseObservationType;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parses Limelight botpose updates as they arrive over NetworkTables, off the main robot thread.
+ *
+ * <p>The thread blocks on a listener poller for botpose_wpiblue value changes, drops frames with no
+ * tags, and hands the parsed frames to each camera's lock-free queue. The main loop drains the
+ * queues in {@link VisionIOLimelight#updateInputs}, so every frame still passes through
+ * AdvantageKit inputs and the pose estimator is only fed from the main loop, keeping replay
+ * deterministic. The thread also performs the NetworkTables flush requested after orientation
+ * updates, so the main loop never blocks on it. A flush request wakes the thread immediately rather
+ * than waiting for the next frame.
+ */
+public class VisionIngestThread extends Thread {
+  /** Frames held per camera before new ones are dropped (main loop stalled or not draining). */
+  private static final int MAX_PENDING_FRAMES = 32;
+
+  /** One parsed Limelight botpose update. */
+  public static record Frame(PoseObservation observation, int[] tagIds) {}
+
+  /** Frames received for a single camera, drained by the main loop. */
+  public static class FrameQueue {
+    private final Queue<Frame> frames = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private int listenerHandle;
+
+    /** Returns the oldest unread frame, or null if there are none. */
+    public Frame poll() {
+      Frame frame = frames.poll();
+      if (frame != null) pending.decrementAndGet();
+      return frame;
+    }
+
+    private void offer(Frame frame) {
+      if (pending.incrementAndGet() > MAX_PENDING_FRAMES) {
+        pending.decrementAndGet();
+        return;
+      }
+      frames.offer(frame);
+    }
+  }
+
+  private final NetworkTableListenerPoller poller =
+      new NetworkTableListenerPoller(NetworkTableInstance.getDefault());
+  private final List<FrameQueue> queues = new ArrayList<>();
+  private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+  private final int flushEvent = WPIUtilJNI.createEvent(false, false);
+  private final int[] waitHandles = {poller.getHandle(), flushEvent};
+
+  private static VisionIngestThread instance = null;
+
+  public static VisionIngestThread getInstance() {
+    if (instance == null) {
+      instance = new VisionIngestThread();
+    }
+    return instance;
+  }
+
+  private VisionIngestThread() {
+    setName("VisionIngestThread");
+    setDaemon(true);
+  }
+
+  /** Starts listening to a botpose subscriber, starting the thread on first use. */
+  public synchronized FrameQueue register(DoubleArraySubscriber botposeSubscriber) {
+    FrameQueue queue = new FrameQueue();
+    // Held across both so events arriving before the queue is added wait for it in findQueue()
+    synchronized (queues) {
+      queue.listenerHandle =
+          poller.addListener(botposeSubscriber, EnumSet.of(NetworkTableEvent.Kind.kValueAll));
+      queues.add(queue);
+    }
+    if (!isAlive()) {
+      start();
+    }
+    return queue;
+  }
+
+  /** Requests a NetworkTables flush from this thread, waking it if it's waiting for frames. */
+  public void requestFlush() {
+    flushRequested.set(true);
+    WPIUtilJNI.setEvent(flushEvent);
+  }
+
+  @Override
+  public void run() {
+    while (true) {
+      try {
+        WPIUtilJNI.waitForObjects(waitHandles);
+      } catch (InterruptedException e) {
+        e.printStackTrace();
+        return;
+      }
+
+      for (NetworkTableEvent event : poller.readQueue()) {
+        if (event.valueData == null) continue;
+        FrameQueue queue = findQueue(event.listener);
+        if (queue == null) continue;
+        Frame frame =
+            parse(event.valueData.value.getDoubleArray(), event.valueData.value.getTime());
+        if (frame != null) queue.offer(frame);
+      }
+
+      if (flushRequested.getAndSet(false)) {
+        NetworkTableInstance.getDefault().flush();
+      }
+    }
+  }
+
+  private FrameQueue findQueue(int listenerHandle) {
+    synchronized (queues) {
+      for (int i = 0; i < queues.size(); i++) {
+        if (queues.get(i).listenerHandle == listenerHandle) return queues.get(i);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Parses a Limelight botpose array, returning null if it is too short to hold a pose. Frames with
+   * no tags are kept so Vision logs and rejects them like the polled path does.
+   */
+  private static Frame parse(double[] rawLLArray, long timestampMicros) {
+    if (rawLLArray.length < 11) return null;
+    int tagCount = (int) rawLLArray[7];
+
+    // Collect tag IDs
+    int[] tagIds = new int[(rawLLArray.length - 11 + 6) / 7];
+    for (int i = 11, j = 0; i < rawLLArray.length; i += 7, j++) {
+      tagIds[j] = (int) rawLLArray[i];
+    }
+
+    return new Frame(
+        new PoseObservation(
+            timestampMicros * 1.0e-6 - rawLLArray[6] * 1.0e-3,
+            new Pose3d(
+                rawLLArray[0],
+                rawLLArray[1],
+                rawLLArray[2],
+                new Rotation3d(
+                    Units.degreesToRadians(rawLLArray[3]),
+                    Units.degreesToRadians(rawLLArray[4]),
+                    Units.degreesToRadians(rawLLArray[5]))),
+            rawLLArray.length >= 18 ? rawLLArray[17] : 0.0,
+            tagCount,
+            rawLLArray[9],
+            PoseObservationType.MEGATAG_1),
+        tagIds);
+  }
+}
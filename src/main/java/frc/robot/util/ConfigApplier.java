@@ -0,0 +1,88 @@
+package frc.robot.util;
+
+import com.ctre.phoenix6.StatusCode;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Applies device configs on a background thread so runtime tunable changes never block the loop.
+ *
+ * <p>Requests are keyed per device and config. If a key is submitted again before the worker gets
+ * to it, only the latest request is applied. Failed applies are retried, and the outcome of each
+ * apply is logged from the main loop under Config/.
+ */
+public final class ConfigApplier {
+  private static final int MAX_ATTEMPTS = 5;
+
+  private record Result(String key, StatusCode status, int attempts, double durationMs) {}
+
+  private static final Map<String, Supplier<StatusCode>> pending = new ConcurrentHashMap<>();
+  private static final BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+  private static final Queue<Result> results = new ConcurrentLinkedQueue<>();
+  private static Thread worker = null;
+
+  private ConfigApplier() {}
+
+  /**
+   * Queues a config apply. Call from the main loop.
+   *
+   * @param key Identifies the device and config, e.g. "Spindexer/CurrentLimits".
+   * @param apply Applies the config and returns its status. Runs on the worker thread.
+   */
+  public static void submit(String key, Supplier<StatusCode> apply) {
+    if (worker == null) {
+      worker = new Thread(ConfigApplier::run, "ConfigApplier");
+      worker.setDaemon(true);
+      worker.start();
+    }
+
+    // Only queue the key once, later submissions replace the pending apply
+    if (pending.put(key, apply) == null) {
+      queue.add(key);
+    }
+    Logger.recordOutput("Config/" + key + "/Status", "PENDING");
+  }
+
+  /** Logs completed applies. Call once per loop from the main loop. */
+  public static void periodic() {
+    Result result;
+    while ((result = results.poll()) != null) {
+      String prefix = "Config/" + result.key();
+      Logger.recordOutput(prefix + "/Status", result.status().isOK() ? "OK" : "FAILED");
+      Logger.recordOutput(prefix + "/StatusCode", result.status().getName());
+      Logger.recordOutput(prefix + "/Attempts", result.attempts());
+      Logger.recordOutput(prefix + "/DurationMs", result.durationMs());
+    }
+  }
+
+  private static void run() {
+    while (true) {
+      String key;
+      try {
+        key = queue.take();
+      } catch (InterruptedException e) {
+        e.printStackTrace();
+        return;
+      }
+
+      Supplier<StatusCode> apply = pending.remove(key);
+      if (apply == null) continue;
+
+      long start = System.nanoTime();
+      StatusCode status = StatusCode.OK;
+      int attempts = 0;
+      while (attempts < MAX_ATTEMPTS) {
+        attempts++;
+        status = apply.get();
+        if (status.isOK()) break;
+      }
+      results.add(new Result(key, status, attempts, (System.nanoTime() - start) / 1e6));
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package frc.robot.util;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Keeps the last few seconds of high-rate signals in memory and writes them to the log only when
+ * something goes wrong.
+ *
+ * <p>A notifier samples every channel at {@link #SAMPLE_FREQUENCY} into a preallocated ring, so
+ * brownouts, jams and pose jumps that happen between 50 Hz loops are still visible afterwards.
+ * Phoenix signals are recorded at whatever rate the device already publishes them (repeating
+ * between frames), so the recorder adds no CAN traffic. Subsystems register channels during
+ * construction, {@link #start()} fixes the channel list. When {@link #trigger(String)} is called
+ * (or the notifier sees a brownout) the ring keeps filling for a short time to capture the
+ * aftermath, then {@link #periodic()} logs the whole window under FlightRecorder/&lt;reason&gt;/.
+ * Dumps are rate limited to one per window.
+ */
+public final class FlightRecorder {
+  public static final double SAMPLE_FREQUENCY = 250.0;
+  private static final double WINDOW_SECONDS = 2.0;
+  private static final double POST_TRIGGER_SECONDS = 0.25;
+  private static final int CAPACITY = (int) Math.ceil(SAMPLE_FREQUENCY * WINDOW_SECONDS);
+
+  private static final List<String> channelNames = new ArrayList<>();
+  private static final List<DoubleSupplier> channelSuppliers = new ArrayList<>();
+  private static final List<BaseStatusSignal> phoenixSignals = new ArrayList<>();
+
+  // Fixed by start(), only read by the notifier afterwards
+  private static DoubleSupplier[] channels;
+  private static BaseStatusSignal[] signals;
+  private static double[] sample;
+  private static TimeSeriesBuffer buffer;
+  private static Notifier notifier;
+  private static boolean started = false;
+
+  private static volatile boolean brownoutTriggered = false;
+  private static boolean wasBrownedOut = false; // Only used by the notifier
+
+  // Dump state, main loop only
+  private static double[] dumpTimestamps;
+  private static double[] dumpValues;
+  private static String pendingReason = null;
+  private static double dumpTime = 0.0;
+  private static double cooldownUntil = 0.0;
+  private static int dumpCount = 0;
+
+  private FlightRecorder() {}
+
+  /** Records a value read on the recorder thread. The supplier must be thread safe. */
+  public static void addChannel(String name, DoubleSupplier supplier) {
+    if (started) {
+      DriverStation.reportWarning("FlightRecorder channel added after start: " + name, false);
+      return;
+    }
+    channelNames.add(name);
+    channelSuppliers.add(supplier);
+  }
+
+  /**
+   * Records a Phoenix signal at its existing update frequency, which is not changed. The signal is
+   * cloned so refreshing it on the recorder thread never touches the main loop's copy; refreshing
+   * only reads the latest received frame.
+   */
+  public static void addSignal(String name, StatusSignal<?> signal) {
+    if (started) {
+      DriverStation.reportWarning("FlightRecorder channel added after start: " + name, false);
+      return;
+    }
+    StatusSignal<?> clone = signal.clone();
+    if (clone.getAppliedUpdateFrequency() <= 0.0) {
+      DriverStation.reportWarning("FlightRecorder signal disabled on the device: " + name, false);
+    }
+    phoenixSignals.add(clone);
+    addChannel(name, clone::getValueAsDouble);
+  }
+
+  /** Allocates the ring and starts sampling. Call once after every subsystem is constructed. */
+  public static void start() {
+    if (started || Constants.currentMode == Constants.Mode.REPLAY) return;
+    addChannel("BatteryVoltage", RobotController::getBatteryVoltage);
+    started = true;
+
+    channels = channelSuppliers.toArray(new DoubleSupplier[0]);
+    signals = phoenixSignals.toArray(new BaseStatusSignal[0]);
+    sample = new double[channels.length];
+    buffer = new TimeSeriesBuffer(CAPACITY, channels.length);
+    dumpTimestamps = new double[CAPACITY];
+    dumpValues = new double[CAPACITY * channels.length];
+
+    notifier = new Notifier(FlightRecorder::sample);
+    notifier.setName("FlightRecorder");
+    notifier.startPeriodic(1.0 / SAMPLE_FREQUENCY);
+  }
+
+  /**
+   * Requests a dump of the recorded window. Ignored while another dump is pending or within one
+   * window of the last dump. Main loop only.
+   */
+  public static void trigger(String reason) {
+    if (!started || pendingReason != null) return;
+    double now = Timer.getFPGATimestamp();
+    if (now < cooldownUntil) return;
+    pendingReason = reason;
+    dumpTime = now + POST_TRIGGER_SECONDS;
+    Logger.recordOutput("FlightRecorder/LastTrigger", reason);
+  }
+
+  /** Handles brownouts seen by the recorder thread and writes pending dumps. Call every loop. */
+  public static void periodic() {
+    if (!started) return;
+    if (brownoutTriggered) {
+      brownoutTriggered = false;
+      trigger("Brownout");
+    }
+    if (pendingReason != null && Timer.getFPGATimestamp() >= dumpTime) {
+      dump(pendingReason);
+      pendingReason = null;
+      cooldownUntil = Timer.getFPGATimestamp() + WINDOW_SECONDS;
+    }
+  }
+
+  private static void dump(String reason) {
+    int count;
+    synchronized (buffer) {
+      count = buffer.copyTo(dumpTimestamps, dumpValues);
+    }
+
+    // Deinterleave into one array per channel. Dumps are rare, so these allocations are fine.
+    String prefix = "FlightRecorder/" + reason + "/";
+    Logger.recordOutput(prefix + "Timestamps", Arrays.copyOf(dumpTimestamps, count));
+    for (int c = 0; c < channels.length; c++) {
+      double[] values = new double[count];
+      for (int i = 0; i < count; i++) {
+        values[i] = dumpValues[i * channels.length + c];
+      }
+      Logger.recordOutput(prefix + channelNames.get(c), values);
+    }
+    dumpCount++;
+    Logger.recordOutput("FlightRecorder/DumpCount", dumpCount);
+    Logger.recordOutput("FlightRecorder/LastDump", reason);
+  }
+
+  /** Reads every channel into the ring. Runs on the notifier. */
+  private static void sample() {
+    if (signals.length > 0) BaseStatusSignal.refreshAll(signals);
+    double timestamp = RobotController.getFPGATime() / 1e6;
+    for (int c = 0; c < channels.length; c++) {
+      sample[c] = channels[c].getAsDouble();
+    }
+    synchronized (buffer) {
+      buffer.add(timestamp, sample);
+    }
+
+    boolean brownedOut = RobotController.isBrownedOut();
+    if (brownedOut && !wasBrownedOut) brownoutTriggered = true;
+    wasBrownedOut = brownedOut;
+  }
+}
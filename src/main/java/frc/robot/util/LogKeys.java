@@ -0,0 +1,108 @@
+package frc.robot.util;
+
+import edu.wpi.first.util.struct.StructSerializable;
+import java.util.HashMap;
+import java.util.Map;
+import org.littletonrobotics.junction.Logger;
+import org.littletonrobotics.junction.inputs.LoggableInputs;
+
+/**
+ * Precomputed, interned log keys, plus a thin facade over {@link Logger} that takes key handles.
+ *
+ * <p>Indexed keys like "TurretCamera/Targets/3/TagID" would otherwise be rebuilt by string
+ * concatenation every loop. Subsystems build their keys once at construction with {@link
+ * #of(String)}, {@link #indexed(String, int, String)} or {@link #table(String, int, String...)} and
+ * log through the record methods, which allocate nothing beyond what the Logger itself does.
+ * Registering the same path twice returns the same handle.
+ */
+public final class LogKeys {
+  private static final Map<String, Key> registry = new HashMap<>();
+
+  private LogKeys() {}
+
+  /** Handle for one precomputed log key. */
+  public static final class Key {
+    private final String path;
+
+    private Key(String path) {
+      this.path = path;
+    }
+
+    /** Returns the full log path. */
+    public String path() {
+      return path;
+    }
+
+    @Override
+    public String toString() {
+      return path;
+    }
+  }
+
+  /** Returns the handle for a key, registering it if needed. */
+  public static Key of(String path) {
+    return registry.computeIfAbsent(path, p -> new Key(p.intern()));
+  }
+
+  /** Returns prefix + index + suffix for each index in [0, count). */
+  public static Key[] indexed(String prefix, int count, String suffix) {
+    Key[] keys = new Key[count];
+    for (int i = 0; i < count; i++) {
+      keys[i] = of(prefix + i + suffix);
+    }
+    return keys;
+  }
+
+  /**
+   * Returns prefix + index + "/" + field for each index in [0, count) and each field, indexed as
+   * [index][field].
+   */
+  public static Key[][] table(String prefix, int count, String... fields) {
+    Key[][] keys = new Key[count][fields.length];
+    for (int i = 0; i < count; i++) {
+      for (int f = 0; f < fields.length; f++) {
+        keys[i][f] = of(prefix + i + "/" + fields[f]);
+      }
+    }
+    return keys;
+  }
+
+  /* ===================== Logger Facade ===================== */
+
+  public static void processInputs(Key key, LoggableInputs inputs) {
+    Logger.processInputs(key.path, inputs);
+  }
+
+  public static void record(Key key, boolean value) {
+    Logger.recordOutput(key.path, value);
+  }
+
+  public static void record(Key key, int value) {
+    Logger.recordOutput(key.path, value);
+  }
+
+  public static void record(Key key, long value) {
+    Logger.recordOutput(key.path, value);
+  }
+
+  public static void record(Key key, double value) {
+    Logger.recordOutput(key.path, value);
+  }
+
+  public static void record(Key key, String value) {
+    Logger.recordOutput(key.path, value);
+  }
+
+  public static void record(Key key, double[] value) {
+    Logger.recordOutput(key.path, value);
+  }
+
+  public static <T extends StructSerializable> void record(Key key, T value) {
+    Logger.recordOutput(key.path, value);
+  }
+
+  @SafeVarargs
+  public static <T extends StructSerializable> void record(Key key, T... value) {
+    Logger.recordOutput(key.path, value);
+  }
+}
@@ -0,0 +1,108 @@
+package frc.robot.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Central table of logging tiers, used to decimate NetworkTables telemetry without touching the log
+ * file.
+ *
+ * <p>Every log key belongs to a tier by its longest matching prefix in {@link #RULES}, and keys
+ * that match nothing are {@link Tier#NORMAL}. The file receiver always gets every key every loop;
+ * {@link TieredNT4Publisher} only sends a key to NT on loops where its tier is due. Prefixes match
+ * whole path segments, so "Shot" does not match "Shooter".
+ */
+public final class LogTiers {
+  /** How often keys in a tier are published to NT, as a number of 20 ms loops. */
+  public enum Tier {
+    CRITICAL(1), // 50 Hz
+    NORMAL(2), // 25 Hz
+    DEBUG(10); // 5 Hz
+
+    public final int periodLoops;
+
+    Tier(int periodLoops) {
+      this.periodLoops = periodLoops;
+    }
+  }
+
+  /** Only decimate with the FMS attached, so pit and practice debugging gets full rate NT. */
+  public static final boolean DECIMATE_ONLY_ON_FMS = true;
+
+  private static final Object[][] RULES = {
+    // Driver and field-state feedback
+    {"DriverStation", Tier.CRITICAL},
+    {"RobotHealth", Tier.CRITICAL},
+    {"ShootingCoordinator", Tier.CRITICAL},
+    {"Coordinator", Tier.CRITICAL},
+    {"Odometry/Robot", Tier.CRITICAL},
+    {"ShouldFlip", Tier.CRITICAL},
+    {"FlightRecorder", Tier.CRITICAL},
+    {"Drive/Gyro", Tier.CRITICAL},
+
+    // Diagnostics only read when tuning or debugging
+    {"Profiling", Tier.DEBUG},
+    {"Signals", Tier.DEBUG},
+    {"Config", Tier.DEBUG},
+    {"SystemStats", Tier.DEBUG},
+    {"PowerDistribution", Tier.DEBUG},
+    {"RadioStatus", Tier.DEBUG},
+    {"LocalADStarAK", Tier.DEBUG},
+    {"SwerveStates", Tier.DEBUG},
+    {"SwerveChassisSpeeds", Tier.DEBUG},
+    {"Drive/Module0", Tier.DEBUG},
+    {"Drive/Module1", Tier.DEBUG},
+    {"Drive/Module2", Tier.DEBUG},
+    {"Drive/Module3", Tier.DEBUG},
+    {"DriveToPoint", Tier.DEBUG},
+    {"TurretCamera/Targets", Tier.DEBUG},
+    {"Vision/Camera0", Tier.DEBUG},
+    {"Vision/Camera1", Tier.DEBUG},
+    {"Vision/Camera2", Tier.DEBUG},
+    {"Vision/Camera3", Tier.DEBUG},
+  };
+
+  // Resolved tiers by normalized key, filled as keys are first seen
+  private static final Map<String, Tier> cache = new HashMap<>();
+
+  private LogTiers() {}
+
+  /**
+   * Returns the tier of a key. Accepts keys with or without the leading slash and the
+   * RealOutputs/ReplayOutputs table. Schemas and metadata are always critical, since NT clients
+   * can't decode anything without them. Not thread safe, only call from one receiver thread.
+   */
+  public static Tier getTier(String key) {
+    Tier tier = cache.get(key);
+    if (tier == null) {
+      tier = resolve(key);
+      cache.put(key, tier);
+    }
+    return tier;
+  }
+
+  private static Tier resolve(String key) {
+    String path = key.startsWith("/") ? key.substring(1) : key;
+    if (path.startsWith(".schema") || path.contains("Metadata") || path.equals("Timestamp")) {
+      return Tier.CRITICAL;
+    }
+    if (path.startsWith("RealOutputs/")) {
+      path = path.substring("RealOutputs/".length());
+    } else if (path.startsWith("ReplayOutputs/")) {
+      path = path.substring("ReplayOutputs/".length());
+    }
+
+    Tier tier = Tier.NORMAL;
+    int bestLength = -1;
+    for (Object[] rule : RULES) {
+      String prefix = (String) rule[0];
+      boolean matches =
+          path.equals(prefix) || (path.startsWith(prefix) && path.charAt(prefix.length()) == '/');
+      if (matches && prefix.length() > bestLength) {
+        tier = (Tier) rule[1];
+        bestLength = prefix.length();
+      }
+    }
+    return tier;
+  }
+}
@@ -0,0 +1,196 @@
+package frc.robot.util;
+
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.littletonrobotics.junction.Logger;
+import org.littletonrobotics.junction.networktables.LoggedNetworkBoolean;
+
+/**
+ * Times each subsystem periodic() and each running command inside CommandScheduler.run().
+ *
+ * <p>The scheduler runs every subsystem periodic() back to back, then polls buttons, then executes
+ * commands. Instead of wrapping each call, the profiler keeps one open section and closes it at the
+ * next checkpoint: each subsystem calls {@link Section#enter()} at the top of periodic(), markers
+ * bound around the button bindings close the last subsystem and the button polling, and the
+ * scheduler's execute callback (which runs right after each command) charges that command. All
+ * histograms live in preallocated rings and percentiles are only computed once per {@link
+ * #STATS_PERIOD_LOOPS} loops.
+ */
+public final class LoopProfiler {
+  /** Loop budget used for overrun attribution. */
+  private static final long LOOP_BUDGET_NANOS = 20_000_000L;
+
+  /** Number of loops kept in each rolling histogram (5 seconds). */
+  private static final int WINDOW = 250;
+
+  /** Loops between percentile updates. */
+  private static final int STATS_PERIOD_LOOPS = 50;
+
+  private static final LoggedNetworkBoolean enabled =
+      new LoggedNetworkBoolean("Profiling/Enabled", true);
+
+  private static final List<Section> sections = new ArrayList<>();
+  private static final Map<String, Section> commandSections = new HashMap<>();
+  private static final long[] scratch = new long[WINDOW];
+
+  private static final Section total = new Section("Total");
+  private static final Section buttons = new Section("Buttons");
+  private static final Section scheduler = new Section("Scheduler");
+
+  private static boolean active = false;
+  private static Section current = null;
+  private static long loopStartNanos = 0;
+  private static long lastCheckpointNanos = 0;
+  private static int loopCount = 0;
+  private static int overrunCount = 0;
+
+  private LoopProfiler() {}
+
+  /* ===================== Sections ===================== */
+
+  /** Timing slot for one subsystem or command. */
+  public static final class Section {
+    private final long[] samples = new long[WINDOW];
+    private final String lastKey;
+    private final String p50Key;
+    private final String p99Key;
+    private final String maxKey;
+    private final String overrunKey;
+    private int sampleCount = 0;
+    private int head = 0;
+    private long loopNanos = 0;
+    private boolean touched = false;
+    private int overruns = 0;
+
+    private Section(String name) {
+      String prefix = "Profiling/" + name + "/";
+      lastKey = prefix + "LastMs";
+      p50Key = prefix + "P50Ms";
+      p99Key = prefix + "P99Ms";
+      maxKey = prefix + "MaxMs";
+      overrunKey = prefix + "OverrunBlame";
+      sections.add(this);
+    }
+
+    /** Marks the start of this section, closing whichever section was running before it. */
+    public void enter() {
+      if (!active) return;
+      checkpoint(this);
+    }
+
+    private void record(long nanos) {
+      samples[head] = nanos;
+      head = (head + 1) % WINDOW;
+      if (sampleCount < WINDOW) sampleCount++;
+    }
+
+    private void logStats() {
+      if (sampleCount == 0) return;
+      System.arraycopy(samples, 0, scratch, 0, sampleCount);
+      Arrays.sort(scratch, 0, sampleCount);
+      Logger.recordOutput(p50Key, scratch[(sampleCount - 1) / 2] / 1e6);
+      Logger.recordOutput(p99Key, scratch[(sampleCount - 1) * 99 / 100] / 1e6);
+      Logger.recordOutput(maxKey, scratch[sampleCount - 1] / 1e6);
+      Logger.recordOutput(overrunKey, overruns);
+    }
+  }
+
+  /** Creates a section for a subsystem. Call once, from the subsystem's constructor. */
+  public static Section section(String name) {
+    return new Section(name);
+  }
+
+  /* ===================== Loop Hooks ===================== */
+
+  /** Hooks the profiler into the command scheduler. Call before any button bindings are created. */
+  public static void bindBeforeButtons() {
+    CommandScheduler.getInstance().getDefaultButtonLoop().bind(buttons::enter);
+    CommandScheduler.getInstance()
+        .onCommandExecute(
+            command -> {
+              if (!active) return;
+              // Execute actions run right after the command, so the elapsed time is its own
+              long now = System.nanoTime();
+              Section section = commandSection(command);
+              section.loopNanos += now - lastCheckpointNanos;
+              section.touched = true;
+              lastCheckpointNanos = now;
+            });
+  }
+
+  /** Closes the button section. Call after all button bindings are created. */
+  public static void bindAfterButtons() {
+    CommandScheduler.getInstance().getDefaultButtonLoop().bind(scheduler::enter);
+  }
+
+  /** Call at the start of robotPeriodic(), before the scheduler runs. */
+  public static void startLoop() {
+    active = enabled.get();
+    if (!active) return;
+    loopStartNanos = System.nanoTime();
+    lastCheckpointNanos = loopStartNanos;
+    current = scheduler;
+  }
+
+  /** Call at the end of robotPeriodic(), after the scheduler runs. */
+  public static void endLoop() {
+    if (!active) return;
+    long now = System.nanoTime();
+    checkpoint(null);
+    long loopNanos = now - loopStartNanos;
+    total.loopNanos = loopNanos;
+    total.touched = true;
+
+    // Attribute overruns to the slowest section of the loop
+    Section slowest = null;
+    for (int i = 0; i < sections.size(); i++) {
+      Section section = sections.get(i);
+      if (!section.touched) continue;
+      section.record(section.loopNanos);
+      if (section != total && (slowest == null || section.loopNanos > slowest.loopNanos)) {
+        slowest = section;
+      }
+      Logger.recordOutput(section.lastKey, section.loopNanos / 1e6);
+      section.loopNanos = 0;
+      section.touched = false;
+    }
+    if (loopNanos > LOOP_BUDGET_NANOS) {
+      overrunCount++;
+      if (slowest != null) slowest.overruns++;
+    }
+    Logger.recordOutput("Profiling/OverrunCount", overrunCount);
+
+    if (++loopCount >= STATS_PERIOD_LOOPS) {
+      loopCount = 0;
+      for (int i = 0; i < sections.size(); i++) {
+        sections.get(i).logStats();
+      }
+    }
+    active = false;
+  }
+
+  private static void checkpoint(Section next) {
+    long now = System.nanoTime();
+    if (current != null) {
+      current.loopNanos += now - lastCheckpointNanos;
+      current.touched = true;
+    }
+    lastCheckpointNanos = now;
+    current = next;
+  }
+
+  private static Section commandSection(Command command) {
+    String name = command.getName();
+    Section section = commandSections.get(name);
+    if (section == null) {
+      section = new Section("Commands/" + name);
+      commandSections.put(name, section);
+    }
+    return section;
+  }
+}
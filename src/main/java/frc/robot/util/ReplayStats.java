@@ -0,0 +1,101 @@
+package frc.robot.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Per-log summary of a replay run: loop timing, vision acceptance and shot counts.
+ *
+ * <p>Only active in REPLAY mode once {@link #start(String, String)} is called. The summary is
+ * written as JSON from a shutdown hook, since AdvantageKit exits the process when the replay log
+ * runs out. {@link frc.robot.ReplayBatch} collects these files from its workers. The record methods
+ * are no-ops otherwise, so subsystems can call them unconditionally.
+ */
+public final class ReplayStats {
+  private static boolean enabled = false;
+  private static String logPath = "";
+  private static String outputPath = "";
+
+  private static long[] loopNanos = new long[16384];
+  private static int loopCount = 0;
+  private static int visionAccepted = 0;
+  private static int visionRejected = 0;
+  private static int shots = 0;
+
+  private ReplayStats() {}
+
+  /**
+   * Starts collecting stats.
+   *
+   * @param replayLogPath The log being replayed.
+   * @param statsPath Where to write the JSON summary on exit.
+   */
+  public static void start(String replayLogPath, String statsPath) {
+    enabled = true;
+    logPath = replayLogPath;
+    outputPath = statsPath;
+    Runtime.getRuntime().addShutdownHook(new Thread(ReplayStats::write, "ReplayStats"));
+  }
+
+  /** Returns the default stats path for a log, next to the _sim output. */
+  public static String getDefaultStatsPath(String replayLogPath) {
+    int extension = replayLogPath.lastIndexOf('.');
+    String stem = extension > 0 ? replayLogPath.substring(0, extension) : replayLogPath;
+    return stem + "_stats.json";
+  }
+
+  public static void recordLoop(long nanos) {
+    if (!enabled) return;
+    if (loopCount == loopNanos.length) {
+      loopNanos = Arrays.copyOf(loopNanos, loopNanos.length * 2);
+    }
+    loopNanos[loopCount++] = nanos;
+  }
+
+  public static void recordVisionObservation(boolean accepted) {
+    if (!enabled) return;
+    if (accepted) {
+      visionAccepted++;
+    } else {
+      visionRejected++;
+    }
+  }
+
+  public static void recordShot() {
+    if (!enabled) return;
+    shots++;
+  }
+
+  private static void write() {
+    long[] sorted = Arrays.copyOf(loopNanos, loopCount);
+    Arrays.sort(sorted);
+    double total = 0.0;
+    for (long nanos : sorted) {
+      total += nanos;
+    }
+    int n = sorted.length;
+    int observations = visionAccepted + visionRejected;
+
+    ObjectMapper mapper = new ObjectMapper();
+    ObjectNode stats = mapper.createObjectNode();
+    stats.put("log", logPath);
+    stats.put("loops", n);
+    stats.put("meanLoopMs", n == 0 ? 0.0 : total / n / 1e6);
+    stats.put("p50LoopMs", n == 0 ? 0.0 : sorted[(n - 1) / 2] / 1e6);
+    stats.put("p99LoopMs", n == 0 ? 0.0 : sorted[(n - 1) * 99 / 100] / 1e6);
+    stats.put("maxLoopMs", n == 0 ? 0.0 : sorted[n - 1] / 1e6);
+    stats.put("visionAccepted", visionAccepted);
+    stats.put("visionRejected", visionRejected);
+    stats.put(
+        "visionAcceptanceRate", observations == 0 ? 0.0 : (double) visionAccepted / observations);
+    stats.put("shots", shots);
+    try {
+      mapper.writerWithDefaultPrettyPrinter().writeValue(new File(outputPath), stats);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+}
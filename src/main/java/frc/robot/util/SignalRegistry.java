@@ -0,0 +1,86 @@
+package frc.robot.util;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+import java.util.ArrayList;
+import java.util.List;
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Refreshes every registered mechanism status signal with a single {@link
+ * BaseStatusSignal#refreshAll} per loop, before any subsystem periodic() runs.
+ *
+ * <p>Subsystems register their signals once and read the cached primitive values afterwards, so
+ * repeated reads within a loop (telemetry, control, public getters) cost nothing and all see the
+ * same sample.
+ */
+public final class SignalRegistry {
+  private static final List<CachedSignal> cachedSignals = new ArrayList<>();
+  private static BaseStatusSignal[] signals = new BaseStatusSignal[0];
+
+  private static final LoopProfiler.Section profilerSection = LoopProfiler.section("Signals");
+
+  private SignalRegistry() {}
+
+  /** Latest value of one status signal, updated by {@link SignalRegistry#refreshAll()}. */
+  public static final class CachedSignal {
+    private final BaseStatusSignal signal;
+    private double value = 0.0;
+    private double timestamp = 0.0;
+    private boolean ok = false;
+
+    private CachedSignal(BaseStatusSignal signal) {
+      this.signal = signal;
+    }
+
+    private void update() {
+      value = signal.getValueAsDouble();
+      timestamp = signal.getTimestamp().getTime();
+      ok = signal.getStatus().isOK();
+    }
+
+    /** Returns the value in the signal's native units. */
+    public double getValue() {
+      return value;
+    }
+
+    /** Returns the time the value was captured, in seconds. */
+    public double getTimestamp() {
+      return timestamp;
+    }
+
+    /** Returns whether the last refresh succeeded. */
+    public boolean isOK() {
+      return ok;
+    }
+  }
+
+  /**
+   * Registers a signal for the batched refresh. The signal is refreshed once immediately so the
+   * cached value is valid during construction.
+   */
+  public static CachedSignal register(BaseStatusSignal signal) {
+    signal.refresh();
+    CachedSignal cached = new CachedSignal(signal);
+    cached.update();
+    cachedSignals.add(cached);
+
+    BaseStatusSignal[] newSignals = new BaseStatusSignal[signals.length + 1];
+    System.arraycopy(signals, 0, newSignals, 0, signals.length);
+    newSignals[signals.length] = signal;
+    signals = newSignals;
+    return cached;
+  }
+
+  /** Refreshes all registered signals. Call once per loop before the scheduler runs. */
+  public static void refreshAll() {
+    profilerSection.enter();
+    if (signals.length == 0) return;
+
+    StatusCode status = BaseStatusSignal.refreshAll(signals);
+    for (int i = 0; i < cachedSignals.size(); i++) {
+      cachedSignals.get(i).update();
+    }
+    Logger.recordOutput("Signals/RefreshOK", status.isOK());
+  }
+}
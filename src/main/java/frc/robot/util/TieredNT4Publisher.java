@@ -0,0 +1,38 @@
+package frc.robot.util;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.util.LogTiers.Tier;
+import java.util.Map;
+import org.littletonrobotics.junction.LogDataReceiver;
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.LogTable.LogValue;
+import org.littletonrobotics.junction.networktables.NT4Publisher;
+
+/**
+ * Wraps {@link NT4Publisher} and only forwards each key on loops where its {@link LogTiers} tier is
+ * due. Values persist in the Logger's table between loops, so a decimated key still shows its
+ * latest value, just less often. Runs on the AdvantageKit receiver thread.
+ */
+public class TieredNT4Publisher implements LogDataReceiver {
+  private final NT4Publisher publisher = new NT4Publisher();
+  private long cycle = 0;
+
+  @Override
+  public void putTable(LogTable table) throws InterruptedException {
+    if (LogTiers.DECIMATE_ONLY_ON_FMS && !DriverStation.isFMSAttached()) {
+      publisher.putTable(table);
+      return;
+    }
+
+    LogTable filtered = new LogTable(table.getTimestamp());
+    for (Map.Entry<String, LogValue> entry : table.getAll(false).entrySet()) {
+      Tier tier = LogTiers.getTier(entry.getKey());
+      if (cycle % tier.periodLoops == 0) {
+        // Keys from the root table start with a slash, put() adds it back
+        filtered.put(entry.getKey().substring(1), entry.getValue());
+      }
+    }
+    cycle++;
+    publisher.putTable(filtered);
+  }
+}
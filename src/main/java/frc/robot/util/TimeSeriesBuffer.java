@@ -0,0 +1,141 @@
+package frc.robot.util;
+
+/**
+ * Fixed-capacity ring of timestamped samples with a fixed number of double channels, stored in flat
+ * primitive arrays.
+ *
+ * <p>Lookups binary search the timestamps and interpolate linearly between the two neighboring
+ * samples, clamping outside the stored range. Samples must be added in timestamp order; older ones
+ * are ignored. Not thread safe, callers that write and read from different threads must lock.
+ */
+public class TimeSeriesBuffer {
+  private final int capacity;
+  private final int channels;
+  private final double[] timestamps;
+  private final double[] values;
+  private int head = 0; // Index of the next write
+  private int size = 0;
+
+  public TimeSeriesBuffer(int capacity, int channels) {
+    this.capacity = capacity;
+    this.channels = channels;
+    timestamps = new double[capacity];
+    values = new double[capacity * channels];
+  }
+
+  /**
+   * Adds a sample, overwriting the oldest one when full.
+   *
+   * @param sample Channel values, copied into the buffer.
+   */
+  public void add(double timestamp, double[] sample) {
+    if (size > 0 && timestamp < timestamps[physical(size - 1)]) return;
+    timestamps[head] = timestamp;
+    System.arraycopy(sample, 0, values, head * channels, channels);
+    head = (head + 1) % capacity;
+    if (size < capacity) size++;
+  }
+
+  /** Removes all samples. */
+  public void clear() {
+    head = 0;
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** Returns the oldest stored timestamp, or NaN if empty. */
+  public double getOldestTimestamp() {
+    return size == 0 ? Double.NaN : timestamps[physical(0)];
+  }
+
+  /** Returns the newest stored timestamp, or NaN if empty. */
+  public double getNewestTimestamp() {
+    return size == 0 ? Double.NaN : timestamps[physical(size - 1)];
+  }
+
+  /**
+   * Interpolates every channel at a timestamp.
+   *
+   * @param out Receives one value per channel.
+   * @return False if the buffer is empty, leaving out unchanged.
+   */
+  public boolean sample(double timestamp, double[] out) {
+    if (size == 0) return false;
+
+    // Find the first sample at or after the timestamp
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (timestamps[physical(mid)] < timestamp) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    if (low == 0 || low == size) {
+      int index = physical(low == 0 ? 0 : size - 1);
+      System.arraycopy(values, index * channels, out, 0, channels);
+      return true;
+    }
+
+    int before = physical(low - 1);
+    int after = physical(low);
+    double span = timestamps[after] - timestamps[before];
+    double t = span > 0.0 ? (timestamp - timestamps[before]) / span : 0.0;
+    for (int c = 0; c < channels; c++) {
+      double a = values[before * channels + c];
+      double b = values[after * channels + c];
+      out[c] = a + (b - a) * t;
+    }
+    return true;
+  }
+
+  /**
+   * Copies every stored sample out, oldest first.
+   *
+   * @param timestampsOut Receives one timestamp per sample, must hold the capacity.
+   * @param valuesOut Receives the channel values interleaved per sample, must hold capacity *
+   *     channels.
+   * @return The number of samples copied.
+   */
+  public int copyTo(double[] timestampsOut, double[] valuesOut) {
+    for (int i = 0; i < size; i++) {
+      int index = physical(i);
+      timestampsOut[i] = timestamps[index];
+      System.arraycopy(values, index * channels, valuesOut, i * channels, channels);
+    }
+    return size;
+  }
+
+  /**
+   * Copies one stored sample out.
+   *
+   * @param index Logical index, 0 being the oldest.
+   * @param out Receives one value per channel.
+   * @return The sample's timestamp.
+   */
+  public double get(int index, double[] out) {
+    int physical = physical(index);
+    System.arraycopy(values, physical * channels, out, 0, channels);
+    return timestamps[physical];
+  }
+
+  /**
+   * Overwrites the channel values of one stored sample, keeping its timestamp.
+   *
+   * @param index Logical index, 0 being the oldest.
+   */
+  public void set(int index, double[] sample) {
+    System.arraycopy(sample, 0, values, physical(index) * channels, channels);
+  }
+
+  /** Converts a logical index (0 = oldest) to an array index. */
+  private int physical(int index) {
+    return (head - size + index + capacity) % capacity;
+  }
+}